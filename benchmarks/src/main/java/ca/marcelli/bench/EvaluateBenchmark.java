@@ -0,0 +1,106 @@
+package ca.marcelli.bench;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.geometry.EvaluationResult;
+import ca.marcelli.geometry.RectangleStore;
+import ca.marcelli.geometry.Relationship;
+import ca.marcelli.geometry.RelationshipEvaluator;
+import ca.marcelli.geometry.RelationshipSweep;
+import ca.marcelli.geometry.SpatialGrid;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * One rectangle evaluated against a whole scene, the way the Evaluate button does it, plus the all
+ * pairs sweep. Scenes are built once per trial, the target is the rectangle in the middle of it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class EvaluateBenchmark {
+
+  @State(Scope.Benchmark)
+  public static class ObjectScene {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"UNIFORM", "CLUSTERED", "GRID"})
+    private Scene.Layout layout;
+
+    private List<DrawRectangle> rectangles;
+    private SpatialGrid grid;
+    private DrawRectangle target;
+
+    @Setup
+    public void setUp() {
+      rectangles = Scene.generate(layout, size, 1).toRectangles();
+      grid = new SpatialGrid();
+      rectangles.forEach(grid::insert);
+      target = rectangles.get(size / 2);
+    }
+  }
+
+  @State(Scope.Benchmark)
+  public static class StoreScene {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"UNIFORM", "CLUSTERED", "GRID"})
+    private Scene.Layout layout;
+
+    private RectangleStore store;
+    private int target;
+    private int[] out;
+
+    @Setup
+    public void setUp() {
+      store = Scene.generate(layout, size, 1).toStore();
+      target = size / 2;
+      out = new int[size];
+    }
+  }
+
+  // Stateless, so one shared instance is fine
+  private final RelationshipEvaluator evaluator = new RelationshipEvaluator();
+
+  // Every rectangle in the scene, what Evaluate did before the spatial grid
+  @Benchmark
+  public EvaluationResult evaluateAll(ObjectScene scene) {
+    return evaluator.evaluate(scene.target, scene.rectangles);
+  }
+
+  // Only the rectangles the grid says are close, what Evaluate does now
+  @Benchmark
+  public EvaluationResult evaluateCandidates(ObjectScene scene) {
+    return evaluator.evaluate(scene.target, scene.grid.query(scene.target));
+  }
+
+  @Benchmark
+  public List<Relationship> sweepAllPairs(ObjectScene scene) {
+    return RelationshipSweep.findAll(scene.rectangles);
+  }
+
+  // The same one against all checks over the columns
+  @Benchmark
+  public void storeScan(StoreScene scene, Blackhole blackhole) {
+    blackhole.consume(scene.store.findIntersecting(scene.target, scene.out));
+    blackhole.consume(scene.store.findContainedIn(scene.target, scene.out));
+    blackhole.consume(scene.store.findContaining(scene.target, scene.out));
+    blackhole.consume(scene.store.findAdjacent(scene.target, scene.out));
+  }
+}
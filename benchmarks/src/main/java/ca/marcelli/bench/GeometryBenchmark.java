@@ -0,0 +1,130 @@
+package ca.marcelli.bench;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.entities.DrawSegment;
+import ca.marcelli.entities.Drawable;
+import ca.marcelli.geometry.AdjacencyType;
+import ca.marcelli.geometry.SpatialGrid;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single pair checks. Every call moves on to the next pair, and the pairs are rectangles that
+ * actually touch, since that's where the expensive paths run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeometryBenchmark {
+
+  private static final int SCENE_SIZE = 2048;
+
+  @Param({"CLUSTERED", "GRID"})
+  private Scene.Layout layout;
+
+  private DrawRectangle[] firsts;
+  private DrawRectangle[] seconds;
+  private DrawRectangle[] intersectFirsts;
+  private DrawRectangle[] intersectSeconds;
+  private DrawRectangle[] intersections;
+  private final int[] out = new int[4];
+  private int pair;
+  private int intersectPair;
+
+  @Setup
+  public void setUp() {
+    List<DrawRectangle> scene = Scene.generate(layout, SCENE_SIZE, 1).toRectangles();
+    SpatialGrid grid = new SpatialGrid();
+    scene.forEach(grid::insert);
+
+    // Pair every rectangle with the first neighbour it touches
+    List<DrawRectangle[]> pairs = new ArrayList<>();
+    List<DrawRectangle[]> intersecting = new ArrayList<>();
+    for (DrawRectangle r : scene) {
+      for (DrawRectangle candidate : grid.query(r)) {
+        if (candidate != r) {
+          pairs.add(new DrawRectangle[] {r, candidate});
+          if (r.intersects(candidate)) {
+            intersecting.add(new DrawRectangle[] {r, candidate});
+          }
+          break;
+        }
+      }
+    }
+    firsts = pairs.stream().map(p -> p[0]).toArray(DrawRectangle[]::new);
+    seconds = pairs.stream().map(p -> p[1]).toArray(DrawRectangle[]::new);
+    // A grid has no intersections, so fall back to the whole scene overlapping itself
+    if (intersecting.isEmpty()) {
+      scene.forEach(r -> intersecting.add(new DrawRectangle[] {r, r}));
+    }
+    intersectFirsts = intersecting.stream().map(p -> p[0]).toArray(DrawRectangle[]::new);
+    intersectSeconds = intersecting.stream().map(p -> p[1]).toArray(DrawRectangle[]::new);
+    intersections = intersecting.stream().map(p -> p[0].isIntersectingWith(p[1]))
+        .toArray(DrawRectangle[]::new);
+  }
+
+  private int nextPair() {
+    int current = pair;
+    pair = current + 1 == firsts.length ? 0 : current + 1;
+    return current;
+  }
+
+  private int nextIntersectPair() {
+    int current = intersectPair;
+    intersectPair = current + 1 == intersectFirsts.length ? 0 : current + 1;
+    return current;
+  }
+
+  @Benchmark
+  public DrawRectangle isIntersectingWith() {
+    int i = nextPair();
+    return firsts[i].isIntersectingWith(seconds[i]);
+  }
+
+  @Benchmark
+  public boolean intersects() {
+    int i = nextPair();
+    return firsts[i].intersects(seconds[i]);
+  }
+
+  @Benchmark
+  public boolean hasContainmentWith() {
+    int i = nextPair();
+    return firsts[i].hasContainmentWith(seconds[i]);
+  }
+
+  @Benchmark
+  public List<DrawSegment> isAdjacentTo() {
+    int i = nextPair();
+    return firsts[i].isAdjacentTo(seconds[i]);
+  }
+
+  @Benchmark
+  public AdjacencyType getAdjacency() {
+    int i = nextPair();
+    return firsts[i].getAdjacency(seconds[i], out);
+  }
+
+  // RectanglePanel.getAllIntersectionsFor only delegates to this, so there's no panel to build
+  @Benchmark
+  public List<Drawable> getAllIntersectionsFor() {
+    int i = nextIntersectPair();
+    return DrawRectangle.getAllIntersectionsFor(intersections[i], intersectFirsts[i],
+        intersectSeconds[i]);
+  }
+}
@@ -0,0 +1,124 @@
+package ca.marcelli.bench;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.geometry.RectangleStore;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic scenes to benchmark against. The same layout, size and seed always give the same
+ * rectangles, so runs can be compared.
+ * <p>
+ * The coordinates are generated first, and only turned into DrawRectangles or a RectangleStore when
+ * asked for, so benchmarks on the store never pay for the objects.
+ */
+public final class Scene {
+
+  public enum Layout {
+    // Rectangles spread evenly, roughly a handful of neighbours each
+    UNIFORM,
+    // Most rectangles piled into a few dense clusters, lots of intersections and containment
+    CLUSTERED,
+    // Rectangles tiling a grid with no gaps, nearly every pair of neighbours is adjacent
+    GRID
+  }
+
+  private final int[] xs;
+  private final int[] ys;
+  private final int[] widths;
+  private final int[] lengths;
+
+  private Scene(int size) {
+    xs = new int[size];
+    ys = new int[size];
+    widths = new int[size];
+    lengths = new int[size];
+  }
+
+  public static Scene generate(Layout layout, int size, long seed) {
+    Scene scene = new Scene(size);
+    Random random = new Random(seed);
+    switch (layout) {
+      case UNIFORM:
+        scene.fillUniform(random);
+        break;
+      case CLUSTERED:
+        scene.fillClustered(random);
+        break;
+      case GRID:
+        scene.fillGrid(random);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown layout " + layout);
+    }
+    return scene;
+  }
+
+  public int size() {
+    return xs.length;
+  }
+
+  public List<DrawRectangle> toRectangles() {
+    List<DrawRectangle> rectangles = new ArrayList<>(size());
+    for (int i = 0; i < size(); i++) {
+      rectangles.add(new DrawRectangle(xs[i], ys[i], widths[i], lengths[i]));
+    }
+    return rectangles;
+  }
+
+  public RectangleStore toStore() {
+    RectangleStore store = new RectangleStore(Math.max(size(), 1));
+    for (int i = 0; i < size(); i++) {
+      store.add(i, xs[i], ys[i], widths[i], lengths[i]);
+    }
+    return store;
+  }
+
+  // Area grows with the count, so density stays the same at every size
+  private void fillUniform(Random random) {
+    int side = (int) Math.sqrt(size()) * 40 + 100;
+    for (int i = 0; i < size(); i++) {
+      xs[i] = random.nextInt(side);
+      ys[i] = random.nextInt(side);
+      widths[i] = 5 + random.nextInt(55);
+      lengths[i] = 5 + random.nextInt(55);
+    }
+  }
+
+  private void fillClustered(Random random) {
+    int clusters = Math.max(1, size() / 1000);
+    int side = (int) Math.sqrt(size()) * 40 + 100;
+    int[] centreX = new int[clusters];
+    int[] centreY = new int[clusters];
+    for (int c = 0; c < clusters; c++) {
+      centreX[c] = random.nextInt(side);
+      centreY[c] = random.nextInt(side);
+    }
+    for (int i = 0; i < size(); i++) {
+      int c = random.nextInt(clusters);
+      xs[i] = centreX[c] + (int) (random.nextGaussian() * 60);
+      ys[i] = centreY[c] + (int) (random.nextGaussian() * 60);
+      widths[i] = 5 + random.nextInt(40);
+      lengths[i] = 5 + random.nextInt(40);
+    }
+  }
+
+  // Columns are 20 wide, and rows are split into 10 or 20 tall cells, so neighbours are a mix of
+  // proper, sub line and partial adjacency
+  private void fillGrid(Random random) {
+    int columns = (int) Math.ceil(Math.sqrt(size()));
+    int i = 0;
+    for (int column = 0; i < size(); column++) {
+      int y = 0;
+      for (int row = 0; row < columns && i < size(); row++, i++) {
+        int length = random.nextBoolean() ? 10 : 20;
+        xs[i] = column * 20;
+        ys[i] = y;
+        widths[i] = 20;
+        lengths[i] = length;
+        y += length;
+      }
+    }
+  }
+}
@@ -1,54 +1,57 @@
 package ca.marcelli;
 
+import ca.marcelli.batch.BatchMain;
 import ca.marcelli.entities.DrawRectangle;
-import java.util.HashMap;
+import ca.marcelli.metrics.Metrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Main {
 
   public static void main(String[] args) {
+    // Batch mode never loads the UI, so it has to be picked before anything touches AWT
+    if (args.length > 0 && "--batch".equals(args[0])) {
+      System.setProperty("java.awt.headless", "true");
+      System.exit(BatchMain.run(Arrays.copyOfRange(args, 1, args.length)));
+    }
+    launchFrame();
+  }
+
+  private static void launchFrame() {
     System.out.println("Launching frame.");
+    Metrics.registerMBean();
     new RectangleFrame(createInitialRectangles());
   }
 
-  private static HashMap<String, DrawRectangle> createInitialRectangles() {
-    HashMap<String, DrawRectangle> rectangles = new HashMap<>();
+  // Names are handed out when the panel takes them
+  private static List<DrawRectangle> createInitialRectangles() {
+    List<DrawRectangle> rectangles = new ArrayList<>();
 
     // Not intersecting
-    DrawRectangle r = new DrawRectangle(10, 25, 150, 150);
-    rectangles.put(r.getName(), r);
-    r = new DrawRectangle(170, 25, 150, 150);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(10, 25, 150, 150));
+    rectangles.add(new DrawRectangle(170, 25, 150, 150));
 
     // Intersecting
-    r = new DrawRectangle(10, 195, 150, 150);
-    rectangles.put(r.getName(), r);
-    r = new DrawRectangle(140, 225, 100, 100);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(10, 195, 150, 150));
+    rectangles.add(new DrawRectangle(140, 225, 100, 100));
 
     // Contained
-    r = new DrawRectangle(400, 25, 200, 200);
-    rectangles.put(r.getName(), r);
-    r = new DrawRectangle(500, 50, 50, 50);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(400, 25, 200, 200));
+    rectangles.add(new DrawRectangle(500, 50, 50, 50));
 
     // Adjacent
-    r = new DrawRectangle(300, 400, 50, 50);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(300, 400, 50, 50));
 
-    r = new DrawRectangle(350, 400, 50, 50);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(350, 400, 50, 50));
 
-    r = new DrawRectangle(150, 400, 50, 45);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(150, 400, 50, 45));
 
-    r = new DrawRectangle(200, 400, 50, 50);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(200, 400, 50, 50));
 
-    r = new DrawRectangle(500, 400, 100, 100);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(500, 400, 100, 100));
 
-    r = new DrawRectangle(600, 425, 50, 50);
-    rectangles.put(r.getName(), r);
+    rectangles.add(new DrawRectangle(600, 425, 50, 50));
     return rectangles;
   }
 }
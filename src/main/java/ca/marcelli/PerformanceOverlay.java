@@ -0,0 +1,143 @@
+package ca.marcelli;
+
+import ca.marcelli.geometry.EvaluationPhase;
+import ca.marcelli.geometry.ParallelEvaluator;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Text box in the corner of the panel with frame times, the last evaluation and what's on screen,
+ * for working out what's slow.
+ * <p>
+ * Frame times are kept in a ring of the last {@link #FRAME_COUNT} paints, and percentiles are worked
+ * out from a copy of it when the overlay is drawn. Drawing it is a filled box and a few lines of
+ * text straight onto the panel, nothing is cached or laid out. The panel measures its frames before
+ * drawing this, so the overlay itself isn't part of what it shows.
+ * <p>
+ * Only used on the event thread.
+ */
+class PerformanceOverlay {
+
+  static final int FRAME_COUNT = 120;
+  private static final int MARGIN = 8;
+  private static final int PADDING = 6;
+  private static final Color BACKGROUND = new Color(0, 0, 0, 180);
+  private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 12);
+  private static final EvaluationPhase[] PHASES = EvaluationPhase.values();
+  // Sized for the most lines there can be
+  private static final int LINE_COUNT = 5 + PHASES.length;
+
+  private final long[] frameNanos = new long[FRAME_COUNT];
+  private final long[] sorted = new long[FRAME_COUNT];
+  private final String[] lines = new String[LINE_COUNT];
+  private final StringBuilder line = new StringBuilder();
+  private final Rectangle bounds = new Rectangle(MARGIN, MARGIN, 0, 0);
+  private int frames;
+  private ParallelEvaluator.Evaluation lastEvaluation;
+
+  void recordFrame(long nanos) {
+    frameNanos[frames % FRAME_COUNT] = nanos;
+    frames++;
+  }
+
+  /**
+   * @param evaluation a finished evaluation, to show until the next one
+   */
+  void setLastEvaluation(ParallelEvaluator.Evaluation evaluation) {
+    lastEvaluation = evaluation;
+  }
+
+  /**
+   * Where the overlay was last drawn, empty if it never was. The panel owns the returned rectangle,
+   * don't change it.
+   */
+  Rectangle getBounds() {
+    return bounds;
+  }
+
+  /**
+   * Draw the overlay in the top left corner.
+   *
+   * @param g2d            graphics of the panel
+   * @param rectangles     how many rectangles are in the scene
+   * @param intersections  how many intersections are shown
+   * @param pointsSegments how many points and segments are shown
+   */
+  void paint(Graphics2D g2d, int rectangles, int intersections, int pointsSegments) {
+    int count = 0;
+    int sampled = Math.min(frames, FRAME_COUNT);
+    line.setLength(0);
+    line.append("Frames (last ").append(sampled).append(')');
+    if (sampled > 0) {
+      System.arraycopy(frameNanos, 0, sorted, 0, sampled);
+      Arrays.sort(sorted, 0, sampled);
+      appendMillis(line.append(" p50 "), percentile(sampled, 0.5));
+      appendMillis(line.append(" p90 "), percentile(sampled, 0.9));
+      appendMillis(line.append(" p99 "), percentile(sampled, 0.99));
+      appendMillis(line.append(" max "), sorted[sampled - 1]);
+    }
+    lines[count++] = line.toString();
+    lines[count++] = "Scene: " + rectangles + " rectangles";
+    lines[count++] = "Showing: " + intersections + " intersections, " + pointsSegments
+        + " points and segments";
+
+    ParallelEvaluator.Evaluation evaluation = lastEvaluation;
+    if (null == evaluation) {
+      lines[count++] = "No evaluation yet";
+    } else {
+      line.setLength(0);
+      line.append("Evaluate ").append(evaluation.getTarget().getName()).append(": ");
+      appendMillis(line, evaluation.getElapsedNanos());
+      line.append(", ").append(evaluation.getPairsChecked()).append(" pairs, ")
+          .append(evaluation.getRelationshipsFound()).append(" found");
+      lines[count++] = line.toString();
+      if (evaluation.isPhaseTimed()) {
+        // CPU time over every thread, and cached pairs aren't timed at all
+        for (EvaluationPhase phase : PHASES) {
+          line.setLength(0);
+          line.append("  ").append(phase.getLabel()).append(' ');
+          appendMillis(line, evaluation.getPhaseNanos(phase));
+          lines[count++] = line.toString();
+        }
+      } else {
+        lines[count++] = "  Phases weren't timed, evaluate again";
+      }
+    }
+
+    g2d.setFont(FONT);
+    FontMetrics metrics = g2d.getFontMetrics();
+    int width = 0;
+    for (int i = 0; i < count; i++) {
+      width = Math.max(width, metrics.stringWidth(lines[i]));
+    }
+    bounds.setSize(width + PADDING * 2, metrics.getHeight() * count + PADDING * 2);
+    g2d.setColor(BACKGROUND);
+    g2d.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+    g2d.setColor(Color.WHITE);
+    int y = bounds.y + PADDING + metrics.getAscent();
+    for (int i = 0; i < count; i++) {
+      g2d.drawString(lines[i], bounds.x + PADDING, y);
+      y += metrics.getHeight();
+    }
+  }
+
+  // Nearest rank over the sorted part of the ring
+  private long percentile(int sampled, double fraction) {
+    int rank = (int) Math.ceil(fraction * sampled);
+    return sorted[Math.max(0, rank - 1)];
+  }
+
+  // Milliseconds with 2 decimals, without going through String.format
+  static StringBuilder appendMillis(StringBuilder out, long nanos) {
+    long hundredths = (nanos + 5_000) / 10_000;
+    out.append(hundredths / 100).append('.');
+    if (hundredths % 100 < 10) {
+      out.append('0');
+    }
+    return out.append(hundredths % 100).append(" ms");
+  }
+}
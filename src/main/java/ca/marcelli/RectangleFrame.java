@@ -1,61 +1,94 @@
 package ca.marcelli;
 
 import ca.marcelli.entities.DrawRectangle;
-import ca.marcelli.entities.DrawSegment;
-import ca.marcelli.entities.Drawable;
+import ca.marcelli.geometry.EvaluationResult;
+import ca.marcelli.geometry.ParallelEvaluator;
+import ca.marcelli.geometry.RelationshipKind;
+import ca.marcelli.geometry.RelationshipEvaluator;
+import ca.marcelli.metrics.LatencyHistogram;
+import ca.marcelli.metrics.Metrics;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
-import java.awt.FlowLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.List;
-import java.util.stream.Collectors;
-import javax.swing.BoxLayout;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import javax.swing.AbstractAction;
+import javax.swing.DefaultListCellRenderer;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
+import javax.swing.JList;
 import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.KeyStroke;
+import javax.swing.RowFilter;
+import javax.swing.SwingUtilities;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableRowSorter;
 
 public class RectangleFrame extends JFrame {
 
-  // Simple panel for rendering buttons for interaction
-  private final JPanel infoPanel = new JPanel();
+  // Time the event thread spends starting an evaluation, the rest happens in the background
+  private static final LatencyHistogram EVALUATE_HANDLER_LATENCY =
+      Metrics.histogram("evaluate.handler");
 
-  // Hashmap tracking sub-panels for interaction
-  private final HashMap<String, JPanel> interactiveComponents = new HashMap<>();
+  // Rectangles listed by name, with buttons for interaction
+  private final RectangleListModel rectangleModel;
+  private final JTable rectangleTable;
 
   // Panel for drawing rectangles on
   private final RectanglePanel rectanglePanel;
 
-  // Panel for listing intersections
-  private final JPanel intersectPanel = new JPanel();
+  // Results of the current evaluation, listed in a table that can be sorted and filtered by kind
+  private final RelationshipTableModel resultsModel = new RelationshipTableModel();
+  private final TableRowSorter<RelationshipTableModel> resultsSorter =
+      new TableRowSorter<>(resultsModel);
 
-  public RectangleFrame(HashMap<String, DrawRectangle> rectangles) {
+  // Does the actual evaluation in the background, this frame only shows what it finds
+  private final RelationshipEvaluator evaluator;
+  private final ParallelEvaluator parallelEvaluator;
+
+  // The evaluation whose results are being shown, only touched on the event thread
+  private ParallelEvaluator.Evaluation currentEvaluation;
+
+  public RectangleFrame(Collection<DrawRectangle> rectangles) {
     // Set basic layouts and properties for the main panels
     setLayout(new BorderLayout());
     rectanglePanel = new RectanglePanel(rectangles);
+    evaluator = new RelationshipEvaluator(rectanglePanel.getRelationshipCache());
+    parallelEvaluator = new ParallelEvaluator(evaluator, ForkJoinPool.commonPool());
+    rectangleModel = new RectangleListModel(rectanglePanel.getScene().asList());
+    rectangleTable = new JTable(rectangleModel);
     rectanglePanel.setBackground(Color.WHITE);
-    infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.PAGE_AXIS));
-    infoPanel.setPreferredSize(new Dimension(300, 1200));
     rectanglePanel.setPreferredSize(new Dimension(800, 1200));
-    intersectPanel.setPreferredSize(new Dimension(300, 1200));
-    intersectPanel.setMinimumSize(new Dimension(250, 1200));
 
     // Add listeners for mouse click and motion to generate new rectangles
     rectanglePanel.addMouseListener(indicatorRectangleAdapter());
     rectanglePanel.addMouseMotionListener(indicatorRectangleAdapter());
 
-    // Add the labels and buttons to the info panel, and finish generating the frame
-    generateInteractiveComponents();
+    // F3 shows the performance overlay, wherever the focus is
+    getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "toggleOverlay");
+    getRootPane().getActionMap().put("toggleOverlay", new AbstractAction() {
+      @Override
+      public void actionPerformed(ActionEvent e) {
+        toggleOverlay();
+      }
+    });
+
+    // Add the list of rectangles, and finish generating the frame
     add(rectanglePanel, BorderLayout.CENTER);
-    add(infoPanel, BorderLayout.LINE_START);
-    add(intersectPanel, BorderLayout.LINE_END);
+    add(generateRectangleList(), BorderLayout.LINE_START);
+    add(generateResultsPanel(), BorderLayout.LINE_END);
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     setSize(1400, 1200);
     setVisible(true);
@@ -73,116 +106,180 @@ public class RectangleFrame extends JFrame {
       @Override
       public void mouseDragged(MouseEvent e) {
         super.mouseDragged(e);
+        // The panel repaints just the area the indicator moved through
         rectanglePanel.setNewPointB(e);
-        revalidate();
-        repaint();
       }
 
       @Override
       public void mouseReleased(MouseEvent e) {
         super.mouseReleased(e);
-        rectanglePanel.addIndicatorRectToHashmap();
-        generateInteractiveComponents();
+        rectangleModel.add(rectanglePanel.addIndicatorRectToHashmap());
       }
     };
   }
 
-  // Generate the labels and buttons for each rectangle
-  private void generateInteractiveComponents() {
-    // Clear the current list of components, easy way to ensure no duplicates
-    interactiveComponents.values().forEach(infoPanel::remove);
-    interactiveComponents.clear();
-
-    // Build new ones based on the rectangles currently part of the panel
-    rectanglePanel.getRectangles().values().stream()
-        .sorted(Comparator.comparing(DrawRectangle::getName)).forEach(rectangle -> {
-      JButton deleteButton = new JButton("Delete");
-      JButton evaluateButton = new JButton("Evaluate");
-      JLabel rectLabel = new JLabel(rectangle.getName());
-
-      // Put GUI elements in their own panel so it's easier to work with
-      JPanel componentPanel = generateSubPanel(rectLabel, deleteButton, evaluateButton);
-
-      // Define listeners for delete and evaluate
-      deleteButton.addActionListener(e -> {
-        rectanglePanel.setIntersectPointsAndSegments(new ArrayList<>());
-        rectanglePanel.setIntersections(new ArrayList<>());
-        intersectPanel.removeAll();
-        rectanglePanel.deleteRectangle(rectangle.getName());
-        interactiveComponents.remove(rectangle.getName());
-        infoPanel.remove(componentPanel);
-        revalidate();
-        repaint();
-      });
-
-      // Pressing evaluate will check that rectangle against all other rectangles
-      evaluateButton.addActionListener(e -> {
-        rectanglePanel.setIntersections(new ArrayList<>());
-        rectanglePanel.setIntersectPointsAndSegments(new ArrayList<>());
-        intersectPanel.removeAll();
-        rectanglePanel.getRectangles().values().stream().filter(r -> r != rectangle).forEach(r -> {
-          // Check for intersection
-          DrawRectangle intersection = r.isIntersectingWith(rectangle);
-          if (null != intersection) {
-            // Since containment is just intersection but with equality to one of the original rectangles,
-            // i only need to check rectangles that actually had an intersection
-            intersection.setColor(Color.BLUE);
-            if (rectangle.hasContainmentWith(r, intersection)) {
-              intersection.setMessage(String.format("<html>%s contains %s<br/></html>",
-                  rectangle.getName(), r.getName()));
-            } else if (r.hasContainmentWith(rectangle, intersection)) {
-              intersection.setMessage(String.format("<html>%s is contained within %s<br/><html>",
-                  rectangle.getName(), r.getName()));
-            } else {
-              String message = "<html>";
-              message +=
-                  String.format("%s intersects with %s<br/>", r.getName(), rectangle.getName());
-              List<Drawable> pointsAndSegments = rectanglePanel
-                  .getAllIntersectionsFor(intersection, r, rectangle);
-              message += pointsAndSegments.stream().map(drawable -> {
-                rectanglePanel.addIntersectPointsAndSegments(drawable);
-                if (drawable instanceof DrawSegment) {
-                  DrawSegment segment = (DrawSegment) drawable;
-                  return String.format("along all points from %s<br/>", segment);
-                }
-                return String.format("at point %s<br/>", drawable.toString());
-              }).collect(Collectors.joining());
-              message += "</html>";
-              intersection.setMessage(message);
-              intersection.setColor(Color.PINK);
-            }
-            rectanglePanel.addIntersection(intersection);
-            JLabel intersectLabel = new JLabel(intersection.getMessage());
-            intersectLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-            intersectPanel.add(intersectLabel);
-          } else {
-            // Check adjacent
-            List<DrawSegment> adjacentSegments = r.isAdjacentTo(rectangle);
-            rectanglePanel.addIntersectPointsAndSegments(adjacentSegments);
-            adjacentSegments
-                .forEach(segment -> intersectPanel.add(new JLabel(segment.getMessage())));
-          }
-        });
-        revalidate();
-        repaint();
-      });
-
-      // Add the generated sub panels to the main info panel
-      interactiveComponents.put(rectangle.getName(), componentPanel);
-      infoPanel.add(componentPanel);
+  // List the rectangles in a table. Only the rows on screen are rendered, and the buttons are just
+  // pictures of buttons, clicks on them are picked up by the table.
+  private JScrollPane generateRectangleList() {
+    rectangleTable.setTableHeader(null);
+    rectangleTable.setRowHeight(new JButton("Evaluate").getPreferredSize().height + 4);
+    rectangleTable.setShowGrid(false);
+    rectangleTable.setRowSelectionAllowed(false);
+    TableCellRenderer buttonRenderer = new ButtonRenderer();
+    rectangleTable.getColumnModel().getColumn(RectangleListModel.DELETE_COLUMN)
+        .setCellRenderer(buttonRenderer);
+    rectangleTable.getColumnModel().getColumn(RectangleListModel.EVALUATE_COLUMN)
+        .setCellRenderer(buttonRenderer);
+    rectangleTable.addMouseListener(new MouseAdapter() {
+      @Override
+      public void mouseClicked(MouseEvent e) {
+        int row = rectangleTable.rowAtPoint(e.getPoint());
+        int column = rectangleTable.columnAtPoint(e.getPoint());
+        if (row < 0) {
+          return;
+        }
+        DrawRectangle rectangle = rectangleModel.getRectangleAt(row);
+        if (RectangleListModel.DELETE_COLUMN == column) {
+          deleteRectangle(rectangle);
+        } else if (RectangleListModel.EVALUATE_COLUMN == column) {
+          evaluateRectangle(rectangle);
+        }
+      }
     });
+    JScrollPane scrollPane = new JScrollPane(rectangleTable);
+    scrollPane.setPreferredSize(new Dimension(300, 1200));
+    return scrollPane;
+  }
+
+  // Results table with a filter on top. Only the visible rows get formatted, and filtering or
+  // sorting by kind just rearranges the rows already found.
+  private JPanel generateResultsPanel() {
+    JTable resultsTable = new JTable(resultsModel);
+    resultsTable.setRowSorter(resultsSorter);
+    resultsSorter.setSortable(RelationshipTableModel.DETAILS_COLUMN, false);
+    resultsTable.setDefaultRenderer(RelationshipKind.class, new DefaultTableCellRenderer() {
+      @Override
+      protected void setValue(Object value) {
+        setText(((RelationshipKind) value).getLabel());
+      }
+    });
+    resultsTable.getColumnModel().getColumn(RelationshipTableModel.KIND_COLUMN)
+        .setPreferredWidth(70);
+    resultsTable.getColumnModel().getColumn(RelationshipTableModel.WITH_COLUMN)
+        .setPreferredWidth(70);
+    resultsTable.getColumnModel().getColumn(RelationshipTableModel.DETAILS_COLUMN)
+        .setPreferredWidth(300);
+    resultsTable.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+
+    JComboBox<Object> kindFilter = new JComboBox<>();
+    kindFilter.addItem("All");
+    for (RelationshipKind kind : RelationshipKind.values()) {
+      kindFilter.addItem(kind);
+    }
+    kindFilter.setRenderer(new DefaultListCellRenderer() {
+      @Override
+      public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                    boolean isSelected, boolean cellHasFocus) {
+        Object text = value instanceof RelationshipKind
+            ? ((RelationshipKind) value).getLabel() : value;
+        return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+      }
+    });
+    kindFilter.addActionListener(e -> {
+      Object selected = kindFilter.getSelectedItem();
+      resultsSorter.setRowFilter(selected instanceof RelationshipKind
+          ? filterByKind((RelationshipKind) selected) : null);
+    });
+
+    JPanel resultsPanel = new JPanel(new BorderLayout());
+    resultsPanel.add(kindFilter, BorderLayout.PAGE_START);
+    resultsPanel.add(new JScrollPane(resultsTable), BorderLayout.CENTER);
+    resultsPanel.setPreferredSize(new Dimension(300, 1200));
+    resultsPanel.setMinimumSize(new Dimension(250, 1200));
+    return resultsPanel;
+  }
+
+  // Filters on the relationship itself, so the details never get formatted just to be filtered
+  private static RowFilter<RelationshipTableModel, Integer> filterByKind(RelationshipKind kind) {
+    return new RowFilter<RelationshipTableModel, Integer>() {
+      @Override
+      public boolean include(Entry<? extends RelationshipTableModel, ? extends Integer> entry) {
+        return kind == entry.getModel().getRelationshipAt(entry.getIdentifier()).getKind();
+      }
+    };
+  }
+
+  private void deleteRectangle(DrawRectangle rectangle) {
+    cancelEvaluation();
+    rectanglePanel.setIntersectPointsAndSegments(new ArrayList<>());
+    rectanglePanel.setIntersections(new ArrayList<>());
+    resultsModel.clear();
+    rectanglePanel.deleteRectangle(rectangle.getName());
+    rectangleModel.remove(rectangle.getName());
     revalidate();
     repaint();
   }
 
-  private JPanel generateSubPanel(JComponent rectLabel, JComponent deleteButton,
-                                  JComponent evaluateButton) {
-    // Add the components to the sub panel and set the sub panel properties
-    List<JComponent> components = List.of(rectLabel, deleteButton, evaluateButton);
-    JPanel componentPanel = new JPanel();
-    components.forEach(componentPanel::add);
-    componentPanel.setLayout(new FlowLayout());
-    componentPanel.setMaximumSize(new Dimension(300, 50));
-    return componentPanel;
+  // Pressing evaluate will check that rectangle against all other rectangles it touches, anything
+  // further away can't intersect or be adjacent so the grid skips it. The checks run in the
+  // background and results show up as they come in, replacing any earlier evaluation.
+  private void evaluateRectangle(DrawRectangle rectangle) {
+    long start = Metrics.startTimer();
+    cancelEvaluation();
+    rectanglePanel.setIntersections(new ArrayList<>());
+    rectanglePanel.setIntersectPointsAndSegments(new ArrayList<>());
+    resultsModel.clear();
+    revalidate();
+    repaint();
+    currentEvaluation = parallelEvaluator.evaluate(rectangle,
+        rectanglePanel.getCandidatesFor(rectangle), this::queuePartialResult,
+        this::queueFinishedEvaluation);
+    EVALUATE_HANDLER_LATENCY.recordSince(start);
+  }
+
+  // Called from the pool, so hand the result over to the event thread before touching anything
+  private void queuePartialResult(ParallelEvaluator.Evaluation evaluation,
+                                  EvaluationResult result) {
+    SwingUtilities.invokeLater(() -> {
+      // Results from an evaluation that was replaced or cancelled in the meantime are dropped
+      if (evaluation != currentEvaluation || evaluation.isCancelled()) {
+        return;
+      }
+      rectanglePanel.addEvaluationResult(result);
+      resultsModel.addAll(result.getRelationships());
+    });
+  }
+
+  // Also from the pool, once the whole evaluation is done
+  private void queueFinishedEvaluation(ParallelEvaluator.Evaluation evaluation) {
+    SwingUtilities.invokeLater(() -> {
+      if (evaluation == currentEvaluation && !evaluation.isCancelled()) {
+        rectanglePanel.setLastEvaluation(evaluation);
+      }
+    });
+  }
+
+  // Phases are only timed while the overlay can show them, timing costs a few clock reads per pair
+  private void toggleOverlay() {
+    boolean visible = !rectanglePanel.isOverlayVisible();
+    evaluator.setTimingPhases(visible);
+    rectanglePanel.setOverlayVisible(visible);
+  }
+
+  private void cancelEvaluation() {
+    if (null != currentEvaluation) {
+      currentEvaluation.cancel();
+      currentEvaluation = null;
+    }
+  }
+
+  // Draws a button in a table cell, one instance is shared by every cell
+  private static class ButtonRenderer extends JButton implements TableCellRenderer {
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                   boolean hasFocus, int row, int column) {
+      setText((String) value);
+      return this;
+    }
   }
 }
@@ -0,0 +1,113 @@
+package ca.marcelli;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * The rectangles listed next to the panel, kept sorted by name.
+ * <p>
+ * Adding or deleting finds the row with a binary search and only tells the table about that row, so
+ * an edit doesn't re-sort or redraw the whole list. The table only asks for rows that are on screen.
+ */
+class RectangleListModel extends AbstractTableModel {
+
+  static final int NAME_COLUMN = 0;
+  static final int DELETE_COLUMN = 1;
+  static final int EVALUATE_COLUMN = 2;
+
+  private static final String[] COLUMN_NAMES = {"Name", "", ""};
+  private static final Comparator<DrawRectangle> BY_NAME =
+      Comparator.comparing(DrawRectangle::getName);
+
+  private final List<DrawRectangle> rows;
+
+  RectangleListModel(Collection<DrawRectangle> rectangles) {
+    rows = new ArrayList<>(rectangles);
+    rows.sort(BY_NAME);
+  }
+
+  /**
+   * Add a rectangle in its sorted place, replacing any rectangle with the same name.
+   *
+   * @param rectangle rectangle to add
+   */
+  void add(DrawRectangle rectangle) {
+    int row = Collections.binarySearch(rows, rectangle, BY_NAME);
+    if (row >= 0) {
+      rows.set(row, rectangle);
+      fireTableRowsUpdated(row, row);
+      return;
+    }
+    row = -row - 1;
+    rows.add(row, rectangle);
+    fireTableRowsInserted(row, row);
+  }
+
+  /**
+   * Remove the rectangle with the given name, if it's listed.
+   *
+   * @param name name of the rectangle
+   */
+  void remove(String name) {
+    int row = indexOf(name);
+    if (row >= 0) {
+      rows.remove(row);
+      fireTableRowsDeleted(row, row);
+    }
+  }
+
+  DrawRectangle getRectangleAt(int row) {
+    return rows.get(row);
+  }
+
+  int indexOf(String name) {
+    int low = 0;
+    int high = rows.size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int compared = rows.get(middle).getName().compareTo(name);
+      if (compared < 0) {
+        low = middle + 1;
+      } else if (compared > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int getRowCount() {
+    return rows.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return COLUMN_NAMES.length;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return COLUMN_NAMES[column];
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    switch (column) {
+      case NAME_COLUMN:
+        return rows.get(row).getName();
+      case DELETE_COLUMN:
+        return "Delete";
+      case EVALUATE_COLUMN:
+        return "Evaluate";
+      default:
+        throw new IndexOutOfBoundsException("No column " + column);
+    }
+  }
+}
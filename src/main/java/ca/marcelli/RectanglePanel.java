@@ -2,65 +2,172 @@ package ca.marcelli;
 
 import ca.marcelli.entities.DrawRectangle;
 import ca.marcelli.entities.Drawable;
+import ca.marcelli.entities.RenderBatch;
+import ca.marcelli.geometry.EvaluationResult;
+import ca.marcelli.geometry.ParallelEvaluator;
+import ca.marcelli.geometry.RelationshipCache;
+import ca.marcelli.geometry.SceneStore;
+import ca.marcelli.metrics.LatencyHistogram;
+import ca.marcelli.metrics.Metrics;
+import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 import javax.swing.JPanel;
+import javax.swing.Timer;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@NoArgsConstructor
 public class RectanglePanel extends JPanel {
 
+  private static final LatencyHistogram PAINT_LATENCY = Metrics.histogram("panel.paint");
+
+  // How often the overlay is refreshed while it's shown, even when nothing else repaints
+  private static final int OVERLAY_REFRESH_MILLIS = 250;
+
+  // Rectangles by name, with a grid over them so painting and evaluation only look at nearby ones.
+  // Only changed on the event thread but readable from anywhere.
+  private final SceneStore scene;
+
+  // Evaluated pairs, kept here so they're dropped when a rectangle is added or deleted
+  @Getter
+  private final RelationshipCache relationshipCache = new RelationshipCache();
+
+  // Widest name added so far, which sets how far past the panel a label can reach from. It's not
+  // narrowed when that rectangle is deleted, looking a bit further out than needed does no harm.
+  private String widestName;
+
+  // Frame times and the last evaluation, drawn over everything else when it's turned on
+  private final PerformanceOverlay overlay = new PerformanceOverlay();
+  private final Timer overlayTimer =
+      new Timer(OVERLAY_REFRESH_MILLIS, e -> repaint(overlay.getBounds()));
   @Getter
-  private HashMap<String, DrawRectangle> rectangles;
+  private boolean overlayVisible;
 
   // Simple way to draw new rectangles
   private Point newPointA, newPointB;
   private DrawRectangle indicatorRectangle;
+  // Area the indicator was last painted in, so it can be cleared when it moves
+  private Rectangle indicatorBounds;
 
   // Draw intersection
   @Getter
-  @Setter
   private List<DrawRectangle> intersections = new ArrayList<>();
 
   @Getter
-  @Setter
   private List<Drawable> intersectPointsAndSegments = new ArrayList<>();
 
-  public RectanglePanel(HashMap<String, DrawRectangle> rectangles) {
-    this.rectangles = rectangles;
+  // Everything but the indicator only changes when the rectangles or the evaluation do, so it's kept
+  // in cached layers, bottom to top. Each layer is painted as one batch.
+  private final RenderLayer intersectionLayer = new RenderLayer(g2d -> {
+    RenderBatch batch = new RenderBatch(g2d.getFontMetrics());
+    intersections.forEach(intersect -> intersect.fill(batch));
+    batch.flush(g2d);
+  });
+  private final RenderLayer rectangleLayer = new RenderLayer(this::drawRectangles);
+  private final RenderLayer pointAndSegmentLayer = new RenderLayer(g2d -> {
+    RenderBatch batch = new RenderBatch(g2d.getFontMetrics());
+    intersectPointsAndSegments.forEach(drawable -> drawable.fill(batch));
+    batch.flush(g2d);
+  });
+
+  public RectanglePanel() {
+    this(Collections.emptyList());
+  }
+
+  public RectanglePanel(Collection<DrawRectangle> rectangles) {
+    scene = new SceneStore(rectangles);
+    scene.snapshot().asList().forEach(rectangle -> noteName(rectangle.getName()));
+  }
+
+  /**
+   * The rectangles as they are now. The snapshot never changes, so it can be handed to another thread
+   * and read there while rectangles are added or deleted.
+   */
+  public SceneStore.Snapshot getScene() {
+    return scene.snapshot();
   }
 
-  public void addIndicatorRectToHashmap() {
-    rectangles.put(indicatorRectangle.getName(), DrawRectangle.copyRectangle(indicatorRectangle));
+  public DrawRectangle addIndicatorRectToHashmap() {
+    DrawRectangle rectangle = DrawRectangle.copyRectangle(indicatorRectangle);
+    DrawRectangle replaced = scene.put(rectangle);
+    noteName(rectangle.getName());
+    // The store named it, so its label is only painted from here on, over where the indicator was
+    Rectangle dirty = getPaintBounds(rectangle);
+    if (null != indicatorBounds) {
+      dirty.add(indicatorBounds);
+    }
+    if (null != replaced) {
+      dirty.add(getPaintBounds(replaced));
+    }
+    relationshipCache.invalidate(rectangle.getName());
+    rectangleLayer.invalidate();
+    repaint(dirty);
     newPointA = null;
     newPointB = null;
     indicatorRectangle = null;
+    indicatorBounds = null;
+    return rectangle;
+  }
+
+  public void setOverlayVisible(boolean overlayVisible) {
+    this.overlayVisible = overlayVisible;
+    if (overlayVisible) {
+      overlayTimer.start();
+      repaint();
+    } else {
+      overlayTimer.stop();
+      repaint(overlay.getBounds());
+    }
+  }
+
+  /**
+   * Show a finished evaluation in the overlay.
+   *
+   * @param evaluation the evaluation, done and not cancelled
+   */
+  public void setLastEvaluation(ParallelEvaluator.Evaluation evaluation) {
+    overlay.setLastEvaluation(evaluation);
+    if (overlayVisible) {
+      repaint(overlay.getBounds());
+    }
   }
 
   public void addIntersection(DrawRectangle intersection) {
     intersections.add(intersection);
+    intersectionLayer.invalidate();
   }
 
   /**
-   * Creates the drawables that will show the intersection points and segments. A point intersection
-   * occurs when two orthogonal sides cross. An "infinite" intersection segment occurs when the
-   * rectangles share one or more sides with each other, but still intersect.
-   * <p>
-   * The extraction works conceptually by taking a vertical line, moving it over each possible x value,
-   * and counting the points. If the number of points is at least 3, there must be an intersection there,
-   * and it will correspond to the "middle" of the values.
-   * Repeat with a horizontal line for y values.
+   * Show what one part of an evaluation found, on top of what's already shown. Results come in
+   * after the evaluation started, so nothing else would repaint for them.
+   *
+   * @param result partial result of the current evaluation
+   */
+  public void addEvaluationResult(EvaluationResult result) {
+    result.getIntersections().forEach(this::addIntersection);
+    addIntersectPointsAndSegments(result.getPointsAndSegments());
+    repaint();
+  }
+
+  public void setIntersections(List<DrawRectangle> intersections) {
+    this.intersections = intersections;
+    intersectionLayer.invalidate();
+  }
+
+  public void setIntersectPointsAndSegments(List<Drawable> intersectPointsAndSegments) {
+    this.intersectPointsAndSegments = intersectPointsAndSegments;
+    pointAndSegmentLayer.invalidate();
+  }
+
+  /**
+   * Creates the drawables that will show the intersection points and segments. The logic lives in
+   * {@link DrawRectangle#getAllIntersectionsFor} so it can be used without a panel.
    *
    * @param intersectionRectangle DrawRectangle representing the intersection
    * @param a                     DrawRectangle for intersection
@@ -70,90 +177,143 @@ public class RectanglePanel extends JPanel {
   public List<Drawable> getAllIntersectionsFor(DrawRectangle intersectionRectangle,
                                                DrawRectangle a,
                                                DrawRectangle b) {
+    return DrawRectangle.getAllIntersectionsFor(intersectionRectangle, a, b);
+  }
 
-    // Fast fail in case intersection is null.
-    if (null == intersectionRectangle) {
-      return null;
-    }
-    // Get the vertices of the intersection rectangle and the two intersecting
-    // rectangles, removing duplicates
-    Set<Point> vertices = intersectionRectangle.getVertices();
-    vertices.addAll(a.getVertices());
-    vertices.addAll(b.getVertices());
-    int totalCount = vertices.size();
-    List<Map<Integer, List<Point>>> hashes = DrawRectangle.getPointHashes(vertices);
-    // 3 or more points along a vertical line
-    Stream<Drawable> xIntersects =
-        hashes.get(0).entrySet().stream().filter(entry -> entry.getValue().size() > 2)
-            .flatMap(entry -> DrawRectangle.extractIntersects(entry, totalCount,
-                intersectionRectangle.getVertices(),
-                a.getVertices(), b.getVertices(), false));
-
-    // 3 or more points along a horizontal line
-    Stream<Drawable> yIntersects =
-        hashes.get(1).entrySet().stream().filter(entry -> entry.getValue().size() > 2)
-            .flatMap(entry -> DrawRectangle.extractIntersects(entry, totalCount,
-                intersectionRectangle.getVertices(),
-                a.getVertices(), b.getVertices(), true));
-
-    return Stream.concat(xIntersects, yIntersects).distinct().collect(Collectors.toList());
+  /**
+   * Get the rectangles that overlap or touch the given rectangle, from the grid in the current
+   * snapshot. Anything that could intersect, contain, or be adjacent to it will be in here, and
+   * nothing too far away to matter. The rectangle itself is included.
+   *
+   * @param rectangle rectangle to find neighbours for
+   * @return candidate rectangles to evaluate against
+   */
+  public List<DrawRectangle> getCandidatesFor(DrawRectangle rectangle) {
+    return scene.snapshot().query(rectangle);
   }
 
   // Removing from the hash + a repaint on the listener ensures the rectangle is
   // removed
   public void deleteRectangle(String key) {
-    rectangles.remove(key);
+    DrawRectangle removed = scene.remove(key);
+    if (null != removed) {
+      relationshipCache.invalidate(key);
+      rectangleLayer.invalidate();
+    }
   }
 
   // When clicking, create an indicator rectangle and set Point A to be the first
   // click
   public void setNewPointA(MouseEvent e) {
     indicatorRectangle = new DrawRectangle();
+    indicatorBounds = null;
     newPointA = e.getPoint();
   }
 
-  // Point B is set on drag on every update
+  /**
+   * Point B is set on drag on every update. Only the area the indicator covered before and after the
+   * move is repainted, the rest of the panel hasn't changed.
+   *
+   * @param e the drag event
+   */
   public void setNewPointB(MouseEvent e) {
+    if (null == newPointA) {
+      return;
+    }
     newPointB = e.getPoint();
+    int width = newPointA.x - newPointB.x;
+    int length = newPointA.y - newPointB.y;
+
+    // If the width/length is negative, point b is used to draw the initial vertex
+    // instead
+    int x = width <= 0 ? newPointA.x : newPointB.x;
+    int y = length <= 0 ? newPointA.y : newPointB.y;
+    indicatorRectangle.setX(x);
+    indicatorRectangle.setY(y);
+    indicatorRectangle.setWidth(Math.abs(width));
+    indicatorRectangle.setLength(Math.abs(length));
+
+    Rectangle bounds = getPaintBounds(indicatorRectangle);
+    Rectangle dirty = null == indicatorBounds ? bounds : bounds.union(indicatorBounds);
+    indicatorBounds = bounds;
+    repaint(dirty);
   }
 
+  /**
+   * Only the indicator is drawn directly, everything else is copied from the cached layers, and only
+   * the part inside the clip. Layers are rendered again first if they changed since the last paint.
+   * <p>
+   * The time this takes is a frame for the overlay, which is drawn last and not counted. Paints that
+   * only refresh the overlay aren't frames either.
+   *
+   * @param g graphics
+   */
   @Override
   public void paintComponent(Graphics g) {
+    long start = System.nanoTime();
     super.paintComponent(g);
     Graphics2D g2d = (Graphics2D) g;
+
     // Render an indicator when drawing new rectangles
     if (null != newPointA && null != newPointB) {
-      int width = newPointA.x - newPointB.x;
-      int length = newPointA.y - newPointB.y;
-
-      // If the width/length is negative, point b is used to draw the initial vertex
-      // instead
-      int x = width <= 0 ? newPointA.x : newPointB.x;
-      int y = length <= 0 ? newPointA.y : newPointB.y;
-      indicatorRectangle.setX(x);
-      indicatorRectangle.setY(y);
-      indicatorRectangle.setWidth(Math.abs(width));
-      indicatorRectangle.setLength(Math.abs(length));
       indicatorRectangle.draw(g2d);
     }
 
-    // Fill intersections + add points
-    intersections.forEach(intersect -> intersect.fill(g2d));
-
-    // Draw all rectangles in hash
-    rectangles.values().forEach(rectangle -> rectangle.draw(g2d));
+    // Fill intersections, draw all rectangles, then fill in intersection points and segments
+    intersectionLayer.paint(g2d, getWidth(), getHeight(), getFont());
+    rectangleLayer.paint(g2d, getWidth(), getHeight(), getFont());
+    pointAndSegmentLayer.paint(g2d, getWidth(), getHeight(), getFont());
 
-    // Fill in intersection points and segments
-    intersectPointsAndSegments.forEach(drawable -> {
-      drawable.fill(g2d);
-    });
+    long frameNanos = System.nanoTime() - start;
+    Rectangle clip = g.getClipBounds();
+    if (!overlayVisible || null == clip || !overlay.getBounds().contains(clip)) {
+      overlay.recordFrame(frameNanos);
+      PAINT_LATENCY.record(frameNanos);
+    }
+    if (overlayVisible) {
+      overlay.paint(g2d, scene.snapshot().size(), intersections.size(),
+          intersectPointsAndSegments.size());
+    }
   }
 
   public void addIntersectPointsAndSegments(Drawable drawable) {
     intersectPointsAndSegments.add(drawable);
+    pointAndSegmentLayer.invalidate();
   }
 
   public void addIntersectPointsAndSegments(List<? extends Drawable> drawables) {
     intersectPointsAndSegments.addAll(drawables);
+    pointAndSegmentLayer.invalidate();
+  }
+
+  // Draw the rectangles that are on the panel. Names are centred on their rectangle and can stick
+  // out past it, so look as far out as the widest name can reach: half its width to either side,
+  // and a line up or down.
+  private void drawRectangles(Graphics2D g2d) {
+    FontMetrics metrics = g2d.getFontMetrics();
+    RenderBatch batch = new RenderBatch(metrics);
+    int marginX = null == widestName ? 0 : metrics.stringWidth(widestName) / 2 + 1;
+    int marginY = metrics.getHeight();
+    scene.snapshot().query(-marginX, -marginY, getWidth() + marginX * 2, getHeight() + marginY * 2)
+        .forEach(rectangle -> rectangle.draw(batch));
+    batch.flush(g2d);
+  }
+
+  private void noteName(String name) {
+    FontMetrics metrics = getFontMetrics(getFont());
+    if (null == widestName || metrics.stringWidth(name) > metrics.stringWidth(widestName)) {
+      widestName = name;
+    }
+  }
+
+  // The outline plus the name drawn in the middle, which can be wider than the rectangle
+  private Rectangle getPaintBounds(DrawRectangle rectangle) {
+    FontMetrics metrics = getFontMetrics(getFont());
+    int textWidth = null == rectangle.getName() ? 0 : metrics.stringWidth(rectangle.getName());
+    int textHeight = metrics.getHeight();
+    Rectangle bounds = rectangle.getBounds();
+    bounds.add(new Rectangle(rectangle.getX() + rectangle.getWidth() / 2 - textWidth / 2 - 1,
+        rectangle.getY() + rectangle.getLength() / 2 - textHeight, textWidth + 2, textHeight * 2));
+    return bounds;
   }
 }
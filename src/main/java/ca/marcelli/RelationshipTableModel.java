@@ -0,0 +1,87 @@
+package ca.marcelli;
+
+import ca.marcelli.geometry.Relationship;
+import ca.marcelli.geometry.RelationshipKind;
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * The results of the current evaluation, one row per relationship.
+ * <p>
+ * Rows keep the relationship itself, and the text describing it is only worked out the first time
+ * the table asks for it, which is when the row scrolls into view. The kind and the other rectangle
+ * are plain values, so sorting and filtering on them never formats anything.
+ */
+class RelationshipTableModel extends AbstractTableModel {
+
+  static final int KIND_COLUMN = 0;
+  static final int WITH_COLUMN = 1;
+  static final int DETAILS_COLUMN = 2;
+
+  private static final String[] COLUMN_NAMES = {"Kind", "With", "Details"};
+
+  private final List<Relationship> rows = new ArrayList<>();
+  // Details already formatted, null until a row is shown
+  private final List<String> details = new ArrayList<>();
+
+  void addAll(List<Relationship> relationships) {
+    if (relationships.isEmpty()) {
+      return;
+    }
+    int first = rows.size();
+    rows.addAll(relationships);
+    relationships.forEach(relationship -> details.add(null));
+    fireTableRowsInserted(first, rows.size() - 1);
+  }
+
+  void clear() {
+    rows.clear();
+    details.clear();
+    fireTableDataChanged();
+  }
+
+  Relationship getRelationshipAt(int row) {
+    return rows.get(row);
+  }
+
+  @Override
+  public int getRowCount() {
+    return rows.size();
+  }
+
+  @Override
+  public int getColumnCount() {
+    return COLUMN_NAMES.length;
+  }
+
+  @Override
+  public String getColumnName(int column) {
+    return COLUMN_NAMES[column];
+  }
+
+  @Override
+  public Class<?> getColumnClass(int column) {
+    return KIND_COLUMN == column ? RelationshipKind.class : String.class;
+  }
+
+  @Override
+  public Object getValueAt(int row, int column) {
+    Relationship relationship = rows.get(row);
+    switch (column) {
+      case KIND_COLUMN:
+        return relationship.getKind();
+      case WITH_COLUMN:
+        return relationship.getSecond().getName();
+      case DETAILS_COLUMN:
+        String text = details.get(row);
+        if (null == text) {
+          text = relationship.describe();
+          details.set(row, text);
+        }
+        return text;
+      default:
+        throw new IndexOutOfBoundsException("No column " + column);
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package ca.marcelli;
+
+import java.awt.AlphaComposite;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+/**
+ * Transparent offscreen image holding part of what the panel draws. It's only rendered again after
+ * it's invalidated or the panel changes size, the rest of the time painting it is a single image
+ * copy.
+ * <p>
+ * On a HiDPI screen the graphics handed to the panel are scaled, so the image has one pixel per
+ * device pixel rather than per panel pixel, and is drawn scaled back down to the panel's size.
+ * Otherwise it would be stretched, and everything on it blurry.
+ */
+class RenderLayer {
+
+  private final Consumer<Graphics2D> renderer;
+  private BufferedImage image;
+  private double scaleX = 1;
+  private double scaleY = 1;
+  private boolean valid;
+
+  /**
+   * @param renderer draws the layer's content, onto a cleared image the size of the panel
+   */
+  RenderLayer(Consumer<Graphics2D> renderer) {
+    this.renderer = renderer;
+  }
+
+  void invalidate() {
+    valid = false;
+  }
+
+  /**
+   * Draw the layer, rendering it first if it's out of date.
+   *
+   * @param g2d    graphics to draw the layer onto
+   * @param width  width of the panel
+   * @param height height of the panel
+   * @param font   font to render text with, so it matches drawing on the panel directly
+   */
+  void paint(Graphics2D g2d, int width, int height, Font font) {
+    if (width <= 0 || height <= 0) {
+      return;
+    }
+    // The scale the panel is painted at, which changes when the window moves to another screen
+    AffineTransform transform = g2d.getTransform();
+    double newScaleX = Math.abs(transform.getScaleX());
+    double newScaleY = Math.abs(transform.getScaleY());
+    int imageWidth = (int) Math.ceil(width * newScaleX);
+    int imageHeight = (int) Math.ceil(height * newScaleY);
+    if (null == image || image.getWidth() != imageWidth || image.getHeight() != imageHeight
+        || scaleX != newScaleX || scaleY != newScaleY) {
+      image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB);
+      scaleX = newScaleX;
+      scaleY = newScaleY;
+      valid = false;
+    }
+    if (!valid) {
+      Graphics2D layerGraphics = image.createGraphics();
+      layerGraphics.setComposite(AlphaComposite.Clear);
+      layerGraphics.fillRect(0, 0, imageWidth, imageHeight);
+      layerGraphics.setComposite(AlphaComposite.SrcOver);
+      layerGraphics.scale(scaleX, scaleY);
+      layerGraphics.setFont(font);
+      renderer.accept(layerGraphics);
+      layerGraphics.dispose();
+      valid = true;
+    }
+    g2d.drawImage(image, 0, 0, width, height, null);
+  }
+}
@@ -0,0 +1,162 @@
+package ca.marcelli.batch;
+
+import ca.marcelli.geometry.AdjacencyType;
+import ca.marcelli.geometry.GridIndex;
+import ca.marcelli.geometry.RectangleMath;
+import ca.marcelli.geometry.RectangleStore;
+import ca.marcelli.geometry.RelationshipKind;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Works out relationships straight from a {@link RectangleStore}, on a fixed number of threads, for
+ * runs with no UI.
+ * <p>
+ * Candidates for each rectangle come from a {@link GridIndex}, and each pair is checked with
+ * {@link RectangleMath}, so nothing is created per rectangle or per pair. Workers take slots in
+ * chunks, and hand relationships over in blocks as each block fills up. Blocks come from every
+ * worker at once, in no particular order, so the output has to be thread safe, like a
+ * {@link RelationshipSink}. Once it gets a block it owns it, the worker starts a new one.
+ */
+public class BatchEvaluator {
+
+  private static final int CHUNK_SIZE = 1024;
+  private static final int BLOCK_SIZE = 4096;
+  // Enough for most rectangles, the few that touch more grow it
+  private static final int INITIAL_CANDIDATES = 64;
+
+  private final RectangleStore store;
+  private final GridIndex index;
+  private final int threads;
+
+  public BatchEvaluator(RectangleStore store, GridIndex index, int threads) {
+    if (threads <= 0) {
+      throw new IllegalArgumentException("Thread count must be positive, got " + threads);
+    }
+    this.store = store;
+    this.index = index;
+    this.threads = threads;
+  }
+
+  /**
+   * Evaluate each target against every other rectangle, like the Evaluate button. Relationships are
+   * read as "target KIND other".
+   *
+   * @param targets slots to evaluate
+   * @param output  gets the relationships, from several threads at once
+   * @return how many relationships were found
+   */
+  public long evaluateTargets(int[] targets, Consumer<RelationshipBlock> output)
+      throws InterruptedException {
+    return run(targets.length, i -> targets[i], false, output);
+  }
+
+  /**
+   * Evaluate every pair of rectangles once. Relationships are read as "lower slot KIND higher slot".
+   *
+   * @param output gets the relationships, from several threads at once
+   * @return how many relationships were found
+   */
+  public long evaluateAllPairs(Consumer<RelationshipBlock> output) throws InterruptedException {
+    return run(store.size(), i -> i, true, output);
+  }
+
+  private long run(int count, IntUnaryOperator slotAt, boolean onlyHigher,
+                   Consumer<RelationshipBlock> output) throws InterruptedException {
+    AtomicInteger nextChunk = new AtomicInteger();
+    LongAdder found = new LongAdder();
+    List<Callable<Void>> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      workers.add(() -> {
+        int[] candidates = new int[INITIAL_CANDIDATES];
+        int[] coordinates = new int[4];
+        RelationshipBlock block = new RelationshipBlock(BLOCK_SIZE);
+        for (int start = nextChunk.getAndAdd(CHUNK_SIZE); start < count;
+             start = nextChunk.getAndAdd(CHUNK_SIZE)) {
+          for (int i = start; i < Math.min(count, start + CHUNK_SIZE); i++) {
+            int slot = slotAt.applyAsInt(i);
+            int candidateCount = index.findTouching(slot, candidates);
+            if (candidateCount > candidates.length) {
+              candidates = new int[Math.max(candidateCount, 2 * candidates.length)];
+              index.findTouching(slot, candidates);
+            }
+            for (int c = 0; c < candidateCount; c++) {
+              int other = candidates[c];
+              if (other == slot || (onlyHigher && other < slot)) {
+                continue;
+              }
+              if (classify(slot, other, coordinates, block)) {
+                found.increment();
+                if (block.isFull()) {
+                  output.accept(block);
+                  block = new RelationshipBlock(BLOCK_SIZE);
+                }
+              }
+            }
+          }
+        }
+        if (block.size() > 0) {
+          output.accept(block);
+        }
+        return null;
+      });
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    try {
+      for (Future<Void> worker : pool.invokeAll(workers)) {
+        worker.get();
+      }
+    } catch (ExecutionException e) {
+      // Output failing is the caller's problem, anything else is a bug
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw (UncheckedIOException) e.getCause();
+      }
+      throw new IllegalStateException("Evaluation failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return found.sum();
+  }
+
+  // Same order of checks as the evaluator: containment only matters when they intersect, and
+  // adjacency can only happen when they don't
+  private boolean classify(int a, int b, int[] coordinates, RelationshipBlock block) {
+    int ax = store.getX(a);
+    int ay = store.getY(a);
+    int aw = store.getWidth(a);
+    int al = store.getLength(a);
+    int bx = store.getX(b);
+    int by = store.getY(b);
+    int bw = store.getWidth(b);
+    int bl = store.getLength(b);
+    if (RectangleMath.intersection(ax, ay, aw, al, bx, by, bw, bl, coordinates)) {
+      RelationshipKind kind;
+      if (RectangleMath.contains(ax, ay, aw, al, bx, by, bw, bl)) {
+        kind = RelationshipKind.CONTAINS;
+      } else if (RectangleMath.contains(bx, by, bw, bl, ax, ay, aw, al)) {
+        kind = RelationshipKind.CONTAINED_BY;
+      } else {
+        kind = RelationshipKind.INTERSECTS;
+      }
+      block.add(store.getId(a), store.getId(b), kind, null, coordinates);
+      return true;
+    }
+    AdjacencyType adjacency = RectangleMath.adjacency(ax, ay, aw, al, bx, by, bw, bl, coordinates);
+    if (null == adjacency) {
+      return false;
+    }
+    block.add(store.getId(a), store.getId(b), RelationshipKind.ADJACENT, adjacency, coordinates);
+    return true;
+  }
+}
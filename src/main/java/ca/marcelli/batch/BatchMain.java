@@ -0,0 +1,187 @@
+package ca.marcelli.batch;
+
+import ca.marcelli.geometry.GridIndex;
+import ca.marcelli.geometry.RectangleStore;
+import ca.marcelli.io.ImportStats;
+import ca.marcelli.io.SceneImporter;
+import ca.marcelli.io.SceneSnapshot;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Command line mode, for running an evaluation with no display:
+ * <pre>
+ *   --batch SCENE [--targets ID,ID,...] [--threads N] [--format FORMAT] [--output FILE]
+ * </pre>
+ * The scene is either a CSV file or a snapshot, told apart by the snapshot's magic number. With
+ * targets, each one is evaluated against everything else, otherwise every pair is. Relationships
+ * are streamed to the output file, or stdout, as CSV, JSON lines or binary records (see
+ * {@link RecordFormat}), and timings go to stderr.
+ * <p>
+ * Nothing in here, or anything it uses, touches AWT or Swing, so it runs on machines with no
+ * display and doesn't pay for loading them.
+ */
+public final class BatchMain {
+
+  private static final String USAGE =
+      "Usage: --batch SCENE [--targets ID,ID,...] [--threads N] [--format FORMAT]"
+          + " [--output FILE]\nFormats: csv, json_lines, binary";
+
+  private BatchMain() {
+  }
+
+  /**
+   * Run a batch evaluation.
+   *
+   * @param args arguments after --batch
+   * @return exit code, 0 if it worked
+   */
+  public static int run(String[] args) {
+    PrintStream log = System.err;
+    Path scene = null;
+    int[] targetIds = null;
+    int threads = Runtime.getRuntime().availableProcessors();
+    Path output = null;
+    RecordFormat format = RecordFormat.CSV;
+    try {
+      for (int i = 0; i < args.length; i++) {
+        switch (args[i]) {
+          case "--targets":
+            targetIds = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+            break;
+          case "--threads":
+            threads = Integer.parseInt(args[++i]);
+            if (threads <= 0) {
+              throw new IllegalArgumentException("Threads must be positive, got " + threads);
+            }
+            break;
+          case "--format":
+            format = RecordFormat.valueOf(args[++i].toUpperCase().replace('-', '_'));
+            break;
+          case "--output":
+            output = Paths.get(args[++i]);
+            break;
+          default:
+            if (args[i].startsWith("--") || null != scene) {
+              throw new IllegalArgumentException("Unexpected argument " + args[i]);
+            }
+            scene = Paths.get(args[i]);
+        }
+      }
+      if (null == scene) {
+        throw new IllegalArgumentException("No scene file given");
+      }
+    } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+      log.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing value" : e.getMessage());
+      log.println(USAGE);
+      return 2;
+    }
+
+    try {
+      long start = System.nanoTime();
+      RectangleStore store;
+      GridIndex index = null;
+      if (isSnapshot(scene)) {
+        SceneSnapshot snapshot = SceneSnapshot.load(scene);
+        store = snapshot.getStore();
+        index = snapshot.getIndex();
+        log.printf("Loaded %,d rectangles from snapshot in %,d ms%n", store.size(),
+            millisSince(start));
+      } else {
+        store = new RectangleStore();
+        ImportStats stats = SceneImporter.importFile(scene, store);
+        log.println(stats);
+      }
+      if (null == index) {
+        start = System.nanoTime();
+        index = GridIndex.build(store);
+        log.printf("Built index in %,d ms%n", millisSince(start));
+      }
+
+      int[] targets = null;
+      if (null != targetIds) {
+        targets = slotsOf(store, targetIds, log);
+      }
+
+      BatchEvaluator evaluator = new BatchEvaluator(store, index, threads);
+      // Straight to fd 1 rather than through System.out, which swallows write errors, so a closed
+      // pipe fails the sink and the run
+      WritableByteChannel channel = null == output
+          ? new FileOutputStream(FileDescriptor.out).getChannel()
+          : FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING);
+      try {
+        start = System.nanoTime();
+        long found;
+        try (RelationshipSink sink = new StreamingRelationshipSink(channel, format)) {
+          found = null == targets
+              ? evaluator.evaluateAllPairs(sink) : evaluator.evaluateTargets(targets, sink);
+        }
+        long nanos = System.nanoTime() - start;
+        int evaluated = null == targets ? store.size() : targets.length;
+        log.printf("Found %,d relationships for %,d rectangles in %,d ms on %d threads, "
+                + "%,.0f rectangles/s%n", found, evaluated, nanos / 1_000_000, threads,
+            evaluated * 1e9 / Math.max(1, nanos));
+      } finally {
+        // stdout isn't ours to close
+        if (null != output) {
+          channel.close();
+        }
+      }
+      return 0;
+    } catch (IOException e) {
+      log.println("Failed: " + e.getMessage());
+      return 1;
+    } catch (UncheckedIOException e) {
+      log.println("Failed: " + e.getCause().getMessage());
+      return 1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.println("Interrupted");
+      return 1;
+    }
+  }
+
+  private static boolean isSnapshot(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      ByteBuffer magic = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+      while (magic.hasRemaining() && channel.read(magic) >= 0) {
+        // Keep reading until there are 4 bytes or the file ends
+      }
+      return !magic.hasRemaining() && SceneSnapshot.MAGIC == magic.getInt(0);
+    }
+  }
+
+  // Ids aren't indexed, so sort them once and binary search instead of scanning for each target
+  private static int[] slotsOf(RectangleStore store, int[] ids, PrintStream log) {
+    long[] idSlots = new long[store.size()];
+    for (int slot = 0; slot < store.size(); slot++) {
+      idSlots[slot] = ((long) store.getId(slot) << 32) | slot;
+    }
+    Arrays.sort(idSlots);
+    return Arrays.stream(ids).map(id -> {
+      int found = Arrays.binarySearch(idSlots, (long) id << 32);
+      int at = found >= 0 ? found : -found - 1;
+      if (at < idSlots.length && (int) (idSlots[at] >> 32) == id) {
+        return (int) idSlots[at];
+      }
+      log.println("No rectangle with id " + id + ", skipping it");
+      return -1;
+    }).filter(slot -> slot >= 0).toArray();
+  }
+
+  private static long millisSince(long start) {
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+}
@@ -0,0 +1,164 @@
+package ca.marcelli.batch;
+
+import ca.marcelli.geometry.AdjacencyType;
+import ca.marcelli.geometry.RelationshipKind;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ways relationships can be written out. Records are encoded straight into a byte buffer, with
+ * numbers written digit by digit, so writing doesn't create a String per record.
+ */
+public enum RecordFormat {
+
+  /**
+   * {@code first,second,kind,adjacency,c0,c1,c2,c3} with a header line. Adjacency is empty unless
+   * the pair is adjacent, and the c columns are the coordinates from the block.
+   */
+  CSV {
+    @Override
+    byte[] header() {
+      return "first,second,kind,adjacency,c0,c1,c2,c3\n".getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    void encode(RelationshipBlock block, int i, ByteBuffer out) {
+      putInt(out, block.getFirst(i));
+      out.put((byte) ',');
+      putInt(out, block.getSecond(i));
+      out.put((byte) ',');
+      out.put(KIND_NAMES[block.getKind(i).ordinal()]);
+      out.put((byte) ',');
+      AdjacencyType adjacency = block.getAdjacency(i);
+      if (null != adjacency) {
+        out.put(ADJACENCY_NAMES[adjacency.ordinal()]);
+      }
+      for (int c = 0; c < 4; c++) {
+        out.put((byte) ',');
+        putInt(out, block.getCoordinate(i, c));
+      }
+      out.put((byte) '\n');
+    }
+  },
+
+  /**
+   * One JSON object per line, like {@code {"first":1,"second":2,"kind":"ADJACENT",
+   * "adjacency":"PROPER","coordinates":[0,30,20,30]}}, with a null adjacency for other kinds.
+   */
+  JSON_LINES {
+    @Override
+    byte[] header() {
+      return new byte[0];
+    }
+
+    @Override
+    void encode(RelationshipBlock block, int i, ByteBuffer out) {
+      out.put(JSON_FIRST);
+      putInt(out, block.getFirst(i));
+      out.put(JSON_SECOND);
+      putInt(out, block.getSecond(i));
+      out.put(JSON_KIND);
+      out.put(KIND_NAMES[block.getKind(i).ordinal()]);
+      out.put(JSON_ADJACENCY);
+      AdjacencyType adjacency = block.getAdjacency(i);
+      if (null == adjacency) {
+        out.put(JSON_NULL);
+      } else {
+        out.put((byte) '"').put(ADJACENCY_NAMES[adjacency.ordinal()]).put((byte) '"');
+      }
+      out.put(JSON_COORDINATES);
+      for (int c = 0; c < 4; c++) {
+        if (c > 0) {
+          out.put((byte) ',');
+        }
+        putInt(out, block.getCoordinate(i, c));
+      }
+      out.put(JSON_END);
+    }
+  },
+
+  /**
+   * Little endian, an 8 byte header of the magic "RREL" and a version, then 28 bytes per record:
+   * first and second as ints, the kind ordinal as a byte, the adjacency ordinal + 1 as a byte (0 when
+   * there's none), 2 bytes of padding, and the 4 coordinates as ints.
+   */
+  BINARY {
+    @Override
+    byte[] header() {
+      return ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putInt(BINARY_MAGIC).putInt(1)
+          .array();
+    }
+
+    @Override
+    void encode(RelationshipBlock block, int i, ByteBuffer out) {
+      out.putInt(block.getFirst(i));
+      out.putInt(block.getSecond(i));
+      out.put((byte) block.getKind(i).ordinal());
+      AdjacencyType adjacency = block.getAdjacency(i);
+      out.put((byte) (null == adjacency ? 0 : adjacency.ordinal() + 1));
+      out.putShort((short) 0);
+      for (int c = 0; c < 4; c++) {
+        out.putInt(block.getCoordinate(i, c));
+      }
+    }
+  };
+
+  // Longest a record can get, the JSON one with every number at its longest
+  static final int MAX_RECORD_SIZE = 256;
+  // "RREL" when read as bytes
+  public static final int BINARY_MAGIC = 0x4C455252;
+
+  private static final byte[][] KIND_NAMES = names(RelationshipKind.values());
+  private static final byte[][] ADJACENCY_NAMES = names(AdjacencyType.values());
+  private static final byte[] MIN_VALUE_DIGITS = ascii("2147483648");
+  private static final byte[] JSON_FIRST = ascii("{\"first\":");
+  private static final byte[] JSON_SECOND = ascii(",\"second\":");
+  private static final byte[] JSON_KIND = ascii(",\"kind\":\"");
+  private static final byte[] JSON_ADJACENCY = ascii("\",\"adjacency\":");
+  private static final byte[] JSON_NULL = ascii("null");
+  private static final byte[] JSON_COORDINATES = ascii(",\"coordinates\":[");
+  private static final byte[] JSON_END = ascii("]}\n");
+
+  /**
+   * Bytes that go at the start of the output, before any record.
+   */
+  abstract byte[] header();
+
+  /**
+   * Encode one relationship of the block. The buffer must have at least {@link #MAX_RECORD_SIZE}
+   * bytes left, and be little endian for the binary format.
+   */
+  abstract void encode(RelationshipBlock block, int i, ByteBuffer out);
+
+  // Digits of the number in ASCII, without going through a String
+  static void putInt(ByteBuffer out, int value) {
+    if (value < 0) {
+      out.put((byte) '-');
+      if (Integer.MIN_VALUE == value) {
+        out.put(MIN_VALUE_DIGITS);
+        return;
+      }
+      value = -value;
+    }
+    int divisor = 1;
+    while (value / divisor >= 10) {
+      divisor *= 10;
+    }
+    for (; divisor > 0; divisor /= 10) {
+      out.put((byte) ('0' + value / divisor % 10));
+    }
+  }
+
+  private static byte[] ascii(String text) {
+    return text.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[][] names(Enum<?>[] values) {
+    byte[][] names = new byte[values.length][];
+    for (int i = 0; i < values.length; i++) {
+      names[i] = ascii(values[i].name());
+    }
+    return names;
+  }
+}
@@ -0,0 +1,82 @@
+package ca.marcelli.batch;
+
+import ca.marcelli.geometry.AdjacencyType;
+import ca.marcelli.geometry.RelationshipKind;
+
+/**
+ * A batch of relationships found by the {@link BatchEvaluator}, kept as int columns so a worker can
+ * collect thousands of them without creating an object each.
+ * <p>
+ * Each relationship is the ids of both rectangles, read as "first KIND second", the adjacency type
+ * for adjacent pairs, and four coordinates: the overlap as x, y, width, length for intersections and
+ * containment, or the shared side as x1, y1, x2, y2 for adjacency.
+ */
+public final class RelationshipBlock {
+
+  private static final RelationshipKind[] KINDS = RelationshipKind.values();
+  private static final AdjacencyType[] ADJACENCY_TYPES = AdjacencyType.values();
+
+  private final int[] firsts;
+  private final int[] seconds;
+  // Kind ordinal in the low byte, adjacency ordinal + 1 in the next, 0 when there's none
+  private final int[] kinds;
+  private final int[] geometry;
+  private int size;
+
+  public RelationshipBlock(int capacity) {
+    firsts = new int[capacity];
+    seconds = new int[capacity];
+    kinds = new int[capacity];
+    geometry = new int[capacity * 4];
+  }
+
+  /**
+   * Add a relationship, the block must not be full.
+   *
+   * @param coordinates the four coordinates, read from the start of the array
+   */
+  public void add(int first, int second, RelationshipKind kind, AdjacencyType adjacency,
+                  int[] coordinates) {
+    firsts[size] = first;
+    seconds[size] = second;
+    kinds[size] = kind.ordinal() | (null == adjacency ? 0 : (adjacency.ordinal() + 1) << 8);
+    System.arraycopy(coordinates, 0, geometry, size * 4, 4);
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size == firsts.length;
+  }
+
+  public int getFirst(int index) {
+    return firsts[index];
+  }
+
+  public int getSecond(int index) {
+    return seconds[index];
+  }
+
+  public RelationshipKind getKind(int index) {
+    return KINDS[kinds[index] & 0xff];
+  }
+
+  // Null unless the pair is adjacent
+  public AdjacencyType getAdjacency(int index) {
+    int adjacency = kinds[index] >>> 8;
+    return 0 == adjacency ? null : ADJACENCY_TYPES[adjacency - 1];
+  }
+
+  /**
+   * One of the four coordinates of a relationship.
+   *
+   * @param index      which relationship
+   * @param coordinate 0 to 3
+   */
+  public int getCoordinate(int index, int coordinate) {
+    return geometry[index * 4 + coordinate];
+  }
+}
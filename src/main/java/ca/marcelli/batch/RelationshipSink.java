@@ -0,0 +1,31 @@
+package ca.marcelli.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Somewhere relationships are streamed to as they're found, instead of being collected.
+ * <p>
+ * Blocks are handed over from any number of threads at once, and belong to the sink from then on.
+ * A sink may make the caller wait when it can't keep up, that's how memory stays bounded. Closing
+ * it waits until everything handed over has been written.
+ */
+public interface RelationshipSink extends Consumer<RelationshipBlock>, Closeable {
+
+  /**
+   * Hand over a block, waiting if the sink is behind.
+   *
+   * @throws java.io.UncheckedIOException if writing already failed
+   */
+  @Override
+  void accept(RelationshipBlock block);
+
+  /**
+   * Write everything that was handed over, and stop.
+   *
+   * @throws IOException if any write failed
+   */
+  @Override
+  void close() throws IOException;
+}
@@ -0,0 +1,144 @@
+package ca.marcelli.batch;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Writes relationships to a channel on its own thread, with bounded memory no matter how many there
+ * are.
+ * <p>
+ * Blocks wait in a queue of fixed size, and the writer thread encodes them into one direct buffer
+ * that's written to the channel each time it fills up. When the queue is full, whoever hands over
+ * the next block waits until the writer takes one, so a slow disk slows the evaluation down instead
+ * of piling up results. At most the queue's worth of blocks and the one buffer are in memory.
+ * <p>
+ * If a write fails, with an IOException or anything unchecked, the writer keeps taking blocks and
+ * dropping them so nobody waits forever, and the error is thrown from the next {@link #accept} and
+ * from {@link #close()}.
+ */
+public class StreamingRelationshipSink implements RelationshipSink {
+
+  public static final int DEFAULT_QUEUE_CAPACITY = 16;
+  private static final int BUFFER_SIZE = 1024 * 1024;
+  // Tells the writer there's nothing more coming
+  private static final RelationshipBlock END = new RelationshipBlock(0);
+
+  private final WritableByteChannel channel;
+  private final RecordFormat format;
+  private final BlockingQueue<RelationshipBlock> queue;
+  private final ByteBuffer buffer =
+      ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  private final Thread writer;
+  private volatile IOException failure;
+  private long written;
+
+  public StreamingRelationshipSink(WritableByteChannel channel, RecordFormat format) {
+    this(channel, format, DEFAULT_QUEUE_CAPACITY);
+  }
+
+  /**
+   * Start a sink. The channel is written to but not closed, that's up to the caller.
+   *
+   * @param channel       where to write
+   * @param format        how to encode relationships
+   * @param queueCapacity how many blocks can wait before callers have to
+   */
+  public StreamingRelationshipSink(WritableByteChannel channel, RecordFormat format,
+                                   int queueCapacity) {
+    this.channel = channel;
+    this.format = format;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    buffer.put(format.header());
+    writer = new Thread(this::writeAll, "relationship-writer");
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void accept(RelationshipBlock block) {
+    checkFailure();
+    try {
+      queue.put(block);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for writer"));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      queue.put(END);
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for writer");
+    }
+    if (null != failure) {
+      throw failure;
+    }
+  }
+
+  // Only read after close
+  public long getRecordsWritten() {
+    return written;
+  }
+
+  private void writeAll() {
+    try {
+      for (RelationshipBlock block = queue.take(); END != block; block = queue.take()) {
+        if (null != failure) {
+          continue;
+        }
+        try {
+          write(block);
+        } catch (IOException | RuntimeException | Error e) {
+          fail(e);
+        }
+      }
+      if (null == failure) {
+        flush();
+      }
+    } catch (InterruptedException e) {
+      failure = new InterruptedIOException("Writer was interrupted");
+    } catch (IOException | RuntimeException | Error e) {
+      fail(e);
+    }
+  }
+
+  // Anything the channel or encoder throws is kept, since a writer that dies leaves callers waiting
+  private void fail(Throwable e) {
+    failure = e instanceof IOException ? (IOException) e : new IOException("Writer failed: " + e, e);
+  }
+
+  private void write(RelationshipBlock block) throws IOException {
+    for (int i = 0; i < block.size(); i++) {
+      if (buffer.remaining() < RecordFormat.MAX_RECORD_SIZE) {
+        flush();
+      }
+      format.encode(block, i, buffer);
+    }
+    written += block.size();
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  private void checkFailure() {
+    IOException e = failure;
+    if (null != e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,9 +1,10 @@
 package ca.marcelli.entities;
 
-import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Stroke;
 import java.util.List;
 import java.util.stream.Collectors;
 import lombok.AllArgsConstructor;
@@ -35,9 +36,26 @@ public class DrawSegment extends Drawable {
     g2d.setColor(Color.CYAN);
     p1.fill(g2d);
     p2.fill(g2d);
-    g2d.setStroke(new BasicStroke(5));
+    Stroke stroke = g2d.getStroke();
+    g2d.setStroke(RenderBatch.THICK_STROKE);
     g2d.drawLine(p1.getX() + 2, p1.getY() + 2, p2.getX() + 2, p2.getY() + 2);
-    g2d.setStroke(new BasicStroke(1));
+    g2d.setStroke(stroke);
+  }
+
+  @Override
+  public void fill(RenderBatch batch) {
+    p1.fill(batch);
+    p2.fill(batch);
+    batch.drawLine(Color.CYAN, RenderBatch.THICK_STROKE, p1.getX() + 2, p1.getY() + 2,
+        p2.getX() + 2, p2.getY() + 2);
+  }
+
+  // Both end points plus the thick line between them
+  @Override
+  public Rectangle getBounds() {
+    Rectangle bounds = p1.getBounds().union(p2.getBounds());
+    bounds.grow(3, 3);
+    return bounds;
   }
 
   @Override
@@ -2,6 +2,7 @@ package ca.marcelli.entities;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -47,6 +48,26 @@ public class Drawable {
     g2d.fillRect(getX(), getY(), getWidth(), getLength());
   }
 
+  // Same as draw, but added to a batch to be painted along with everything else
+  public void draw(RenderBatch batch) {
+    batch.drawRect(getColor(), getX(), getY(), getWidth(), getLength());
+  }
+
+  // Same as fill, but added to a batch to be painted along with everything else
+  public void fill(RenderBatch batch) {
+    batch.fillRect(getColor(), getX(), getY(), getWidth(), getLength());
+  }
+
+  /**
+   * The area drawing or filling this touches, so painting can skip it when it's outside the area
+   * being repainted. An outline goes one pixel past the width and length.
+   *
+   * @return bounds in panel coordinates
+   */
+  public Rectangle getBounds() {
+    return new Rectangle(getX(), getY(), getWidth() + 1, getLength() + 1);
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
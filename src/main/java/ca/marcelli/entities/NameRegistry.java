@@ -0,0 +1,47 @@
+package ca.marcelli.entities;
+
+import java.util.function.Predicate;
+
+/**
+ * Hands out friendly names for rectangles, like "Ada", then "Ada 2" once every name in the pool has
+ * been used.
+ * <p>
+ * Names come from a fixed pool and a counter, so making one is a couple of array reads and, past the
+ * first round, a short string concatenation. The counter only goes up, so a name is never handed out
+ * twice by the same registry, even after the rectangle that had it is gone. Names the caller says
+ * are taken, like ones set by hand or loaded from a file, are skipped.
+ * <p>
+ * Not thread safe, whoever owns the names (the scene) calls it while it's changing anyway.
+ */
+public class NameRegistry {
+
+  private static final String[] POOL = {
+      "Ada", "Ben", "Cleo", "Dan", "Eve", "Finn", "Gus", "Hana", "Ivy", "Jack", "Kai", "Leo", "Mia",
+      "Nora", "Otto", "Pia", "Quinn", "Ray", "Sam", "Tess", "Uma", "Vic", "Wes", "Xena", "Yuri",
+      "Zoe", "Alba", "Bo", "Cy", "Dora", "Eli", "Faye", "Gil", "Hugo", "Ines", "Jude", "Kit", "Lou",
+      "Max", "Ned", "Ola", "Pam", "Rex", "Sid", "Tom", "Val", "Will", "Zed"
+  };
+
+  private long next;
+
+  /**
+   * Get a name that hasn't been handed out before and isn't taken.
+   *
+   * @param taken tells if a name is already used, e.g. by a rectangle that was named by hand
+   * @return the name
+   */
+  public String next(Predicate<String> taken) {
+    String name;
+    do {
+      name = nameAt(next++);
+    } while (taken.test(name));
+    return name;
+  }
+
+  // The first round is the pool as is, after that each round adds its number
+  static String nameAt(long index) {
+    String base = POOL[(int) (index % POOL.length)];
+    long round = index / POOL.length;
+    return 0 == round ? base : base + " " + (round + 1);
+  }
+}
@@ -0,0 +1,155 @@
+package ca.marcelli.entities;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Collects a lot of drawables and paints them with as few calls as possible.
+ * <p>
+ * Instead of every drawable setting its colour and stroke and drawing itself, shapes in a row with
+ * the same colour, stroke and fill or outline are added to one shared path. Flushing then sets the
+ * graphics state and draws once per run, so the cost per frame depends on how often the colour
+ * changes, not how many drawables there are. Text goes in its own group per colour and is drawn
+ * after the shapes, so names stay on top of outlines.
+ * <p>
+ * A new run starts whenever the group changes, so shapes are painted in the order they were added
+ * and overlapping fills stack the same as painting them one by one.
+ */
+public class RenderBatch {
+
+  // Strokes are immutable, so every batch can share them
+  public static final Stroke THIN_STROKE = new BasicStroke(1);
+  public static final Stroke THICK_STROKE = new BasicStroke(5);
+
+  private final FontMetrics fontMetrics;
+  // Runs in the order they were started, a group can have several
+  private final List<GroupKey> runKeys = new ArrayList<>();
+  private final List<Path2D> runPaths = new ArrayList<>();
+  private final Map<Color, List<Text>> text = new LinkedHashMap<>();
+  private GroupKey lastKey;
+  private Path2D lastPath;
+
+  /**
+   * @param fontMetrics metrics of the font the text will be drawn in, used to centre it
+   */
+  public RenderBatch(FontMetrics fontMetrics) {
+    this.fontMetrics = fontMetrics;
+  }
+
+  public void drawRect(Color color, int x, int y, int width, int length) {
+    appendRect(path(color, THIN_STROKE, false), x, y, width, length);
+  }
+
+  public void fillRect(Color color, int x, int y, int width, int length) {
+    appendRect(path(color, THIN_STROKE, true), x, y, width, length);
+  }
+
+  public void drawLine(Color color, Stroke stroke, int x1, int y1, int x2, int y2) {
+    Path2D path = path(color, stroke, false);
+    path.moveTo(x1, y1);
+    path.lineTo(x2, y2);
+  }
+
+  /**
+   * Add text centred on a point.
+   */
+  public void drawCenteredString(Color color, String string, int centreX, int centreY) {
+    if (null == string) {
+      return;
+    }
+    int textWidth = fontMetrics.stringWidth(string);
+    int textHeight = fontMetrics.getHeight();
+    text.computeIfAbsent(color, k -> new ArrayList<>())
+        .add(new Text(string, centreX - textWidth / 2, centreY + textHeight / 2));
+  }
+
+  /**
+   * Paint everything that was added, then empty the batch so it can be reused.
+   *
+   * @param g2d graphics to paint on
+   */
+  public void flush(Graphics2D g2d) {
+    Stroke originalStroke = g2d.getStroke();
+    for (int i = 0; i < runKeys.size(); i++) {
+      GroupKey key = runKeys.get(i);
+      g2d.setColor(key.color);
+      if (key.fill) {
+        g2d.fill(runPaths.get(i));
+      } else {
+        g2d.setStroke(key.stroke);
+        g2d.draw(runPaths.get(i));
+      }
+    }
+    g2d.setStroke(originalStroke);
+    text.forEach((color, strings) -> {
+      g2d.setColor(color);
+      strings.forEach(t -> g2d.drawString(t.string, t.x, t.y));
+    });
+    runKeys.clear();
+    runPaths.clear();
+    text.clear();
+    lastKey = null;
+    lastPath = null;
+  }
+
+  // Drawables of the same kind tend to come one after the other, so runs are usually long. Going
+  // back to an earlier group starts a new run instead of adding to the old one, which would paint
+  // it under whatever came in between.
+  private Path2D path(Color color, Stroke stroke, boolean fill) {
+    if (null != lastKey && lastKey.matches(color, stroke, fill)) {
+      return lastPath;
+    }
+    lastKey = new GroupKey(color, stroke, fill);
+    lastPath = new Path2D.Float();
+    runKeys.add(lastKey);
+    runPaths.add(lastPath);
+    return lastPath;
+  }
+
+  private static void appendRect(Path2D path, int x, int y, int width, int length) {
+    path.moveTo(x, y);
+    path.lineTo(x + width, y);
+    path.lineTo(x + width, y + length);
+    path.lineTo(x, y + length);
+    path.closePath();
+  }
+
+  private static final class GroupKey {
+    private final Color color;
+    private final Stroke stroke;
+    private final boolean fill;
+
+    GroupKey(Color color, Stroke stroke, boolean fill) {
+      this.color = color;
+      // Fills don't use the stroke, so they shouldn't be split by it
+      this.stroke = fill ? null : stroke;
+      this.fill = fill;
+    }
+
+    boolean matches(Color color, Stroke stroke, boolean fill) {
+      return this.fill == fill && Objects.equals(this.color, color)
+          && (fill || Objects.equals(this.stroke, stroke));
+    }
+  }
+
+  private static final class Text {
+    private final String string;
+    private final int x;
+    private final int y;
+
+    Text(String string, int x, int y) {
+      this.string = string;
+      this.x = x;
+      this.y = y;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package ca.marcelli.geometry;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+/**
+ * Interval tree over closed y intervals, used as the active set of the plane sweep.
+ * <p>
+ * It's a treap keyed on the interval start, where every node also tracks the largest end in its
+ * subtree. That lets a query skip any subtree that ends before the query starts, so finding the k
+ * overlapping intervals is O(log n + k), and inserts and removes are O(log n) expected.
+ * <p>
+ * Nodes are the indices of the intervals themselves, and the tree is stored in parallel arrays, so
+ * nothing is allocated once it's built.
+ */
+class ActiveIntervals {
+
+  private static final int NONE = -1;
+
+  private final int[] start;
+  private final int[] end;
+  private final int[] left;
+  private final int[] right;
+  private final int[] priority;
+  private final int[] maxEnd;
+  private int root = NONE;
+
+  /**
+   * @param start start of each interval, by index
+   * @param end   end of each interval, by index
+   */
+  ActiveIntervals(int[] start, int[] end) {
+    this.start = start;
+    this.end = end;
+    int n = start.length;
+    left = new int[n];
+    right = new int[n];
+    maxEnd = new int[n];
+    priority = new int[n];
+    // Fixed seed, the shape of the tree doesn't need to be unpredictable
+    Random random = new Random(n);
+    for (int i = 0; i < n; i++) {
+      priority[i] = random.nextInt();
+    }
+    Arrays.fill(left, NONE);
+    Arrays.fill(right, NONE);
+  }
+
+  void insert(int node) {
+    left[node] = NONE;
+    right[node] = NONE;
+    maxEnd[node] = end[node];
+    root = insert(root, node);
+  }
+
+  void remove(int node) {
+    root = remove(root, node);
+  }
+
+  /**
+   * Call the consumer with every active interval that overlaps or touches [from, to].
+   */
+  void forEachOverlapping(int from, int to, IntConsumer consumer) {
+    query(root, from, to, consumer);
+  }
+
+  private int insert(int t, int node) {
+    if (t == NONE) {
+      return node;
+    }
+    if (less(node, t)) {
+      left[t] = insert(left[t], node);
+      if (priority[left[t]] > priority[t]) {
+        t = rotateRight(t);
+      }
+    } else {
+      right[t] = insert(right[t], node);
+      if (priority[right[t]] > priority[t]) {
+        t = rotateLeft(t);
+      }
+    }
+    update(t);
+    return t;
+  }
+
+  private int remove(int t, int node) {
+    if (t == NONE) {
+      return NONE;
+    }
+    if (t == node) {
+      // Rotate the node down until it has at most one child, then splice it out
+      if (left[t] == NONE) {
+        return right[t];
+      }
+      if (right[t] == NONE) {
+        return left[t];
+      }
+      if (priority[left[t]] > priority[right[t]]) {
+        t = rotateRight(t);
+        right[t] = remove(right[t], node);
+      } else {
+        t = rotateLeft(t);
+        left[t] = remove(left[t], node);
+      }
+    } else if (less(node, t)) {
+      left[t] = remove(left[t], node);
+    } else {
+      right[t] = remove(right[t], node);
+    }
+    update(t);
+    return t;
+  }
+
+  private void query(int t, int from, int to, IntConsumer consumer) {
+    if (t == NONE || maxEnd[t] < from) {
+      return;
+    }
+    query(left[t], from, to, consumer);
+    if (start[t] <= to) {
+      if (end[t] >= from) {
+        consumer.accept(t);
+      }
+      // Everything on the right starts at or after this one
+      query(right[t], from, to, consumer);
+    }
+  }
+
+  // Ties on start are broken by index so every node has a distinct key
+  private boolean less(int a, int b) {
+    return start[a] < start[b] || (start[a] == start[b] && a < b);
+  }
+
+  private int rotateRight(int t) {
+    int l = left[t];
+    left[t] = right[l];
+    right[l] = t;
+    update(t);
+    update(l);
+    return l;
+  }
+
+  private int rotateLeft(int t) {
+    int r = right[t];
+    right[t] = left[r];
+    left[r] = t;
+    update(t);
+    update(r);
+    return r;
+  }
+
+  private void update(int t) {
+    int max = end[t];
+    if (left[t] != NONE) {
+      max = Math.max(max, maxEnd[left[t]]);
+    }
+    if (right[t] != NONE) {
+      max = Math.max(max, maxEnd[right[t]]);
+    }
+    maxEnd[t] = max;
+  }
+}
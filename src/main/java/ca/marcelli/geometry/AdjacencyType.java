@@ -0,0 +1,23 @@
+package ca.marcelli.geometry;
+
+/**
+ * The three kinds of adjacency.
+ * <p>
+ * Proper means the shared side is the full side of both rectangles, sub line means it's the full side
+ * of one of them, and partial means it isn't the full side of either.
+ */
+public enum AdjacencyType {
+  PROPER("Proper Adjacent"),
+  SUB_LINE("Sub-Line Adjacent"),
+  PARTIAL("Partial Adjacent");
+
+  private final String label;
+
+  AdjacencyType(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
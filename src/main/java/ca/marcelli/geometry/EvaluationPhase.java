@@ -0,0 +1,22 @@
+package ca.marcelli.geometry;
+
+/**
+ * The steps of evaluating a pair, in the order they run. Only used to break down how long an
+ * evaluation took.
+ */
+public enum EvaluationPhase {
+  INTERSECTION("Intersection"),
+  CONTAINMENT("Containment"),
+  POINT_EXTRACTION("Point extraction"),
+  ADJACENCY("Adjacency");
+
+  private final String label;
+
+  EvaluationPhase(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
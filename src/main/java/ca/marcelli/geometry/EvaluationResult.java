@@ -0,0 +1,70 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.entities.Drawable;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+/**
+ * Everything found when evaluating one rectangle against the others, in the order the others were
+ * given.
+ */
+@Getter
+public final class EvaluationResult {
+  private final DrawRectangle target;
+  private final List<Relationship> relationships;
+  // Pairs looked at, cached or not
+  private final int pairsChecked;
+  @Getter(AccessLevel.NONE)
+  private final long[] phaseNanos;
+
+  public EvaluationResult(DrawRectangle target, List<Relationship> relationships) {
+    this(target, relationships, relationships.size(), null);
+  }
+
+  /**
+   * @param target        rectangle that was evaluated
+   * @param relationships relationships found
+   * @param pairsChecked  how many pairs were looked at
+   * @param phaseNanos    time spent in each {@link EvaluationPhase} by ordinal, or null if it
+   *                      wasn't timed
+   */
+  public EvaluationResult(DrawRectangle target, List<Relationship> relationships, int pairsChecked,
+                          long[] phaseNanos) {
+    this.target = target;
+    this.relationships = Collections.unmodifiableList(relationships);
+    this.pairsChecked = pairsChecked;
+    this.phaseNanos = phaseNanos;
+  }
+
+  public boolean isPhaseTimed() {
+    return null != phaseNanos;
+  }
+
+  /**
+   * How long was spent in a phase, over every pair that wasn't found in the cache.
+   *
+   * @param phase phase to get
+   * @return the time in nanoseconds, 0 if phases weren't timed
+   */
+  public long getPhaseNanos(EvaluationPhase phase) {
+    return null == phaseNanos ? 0 : phaseNanos[phase.ordinal()];
+  }
+
+  // Intersection rectangles to fill, pink for intersections and blue for containment. Built on
+  // every call, only for showing them.
+  public List<DrawRectangle> getIntersections() {
+    return relationships.stream().filter(Relationship::hasIntersection)
+        .map(Relationship::toIntersectionRectangle).collect(Collectors.toList());
+  }
+
+  // Points and segments to highlight, for both intersections and adjacency. Also built on every
+  // call.
+  public List<Drawable> getPointsAndSegments() {
+    return relationships.stream().flatMap(r -> r.toPointsAndSegments().stream())
+        .collect(Collectors.toList());
+  }
+}
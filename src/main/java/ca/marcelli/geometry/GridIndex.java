@@ -0,0 +1,206 @@
+package ca.marcelli.geometry;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Read-only uniform grid over the slots of a {@link RectangleStore}, packed into two int arrays.
+ * <p>
+ * Same idea as {@link SpatialGrid}, every slot is put in each cell its closed bounds touch, but the
+ * cells are laid out back to back (compressed sparse rows): the slots of cell i are
+ * {@code slots[cellStarts[i]]} up to {@code slots[cellStarts[i + 1]]}. That makes it cheap to build
+ * in two passes, and to save and load as it is.
+ * <p>
+ * The index describes the store as it was when it was built. Adding, removing or moving rectangles
+ * in the store means building a new one. Safe for any number of threads to query at once.
+ */
+public class GridIndex {
+
+  public static final int DEFAULT_CELL_SIZE = 64;
+
+  private final RectangleStore store;
+  private final int cellSize;
+  private final int originX;
+  private final int originY;
+  private final int columns;
+  private final int rows;
+  private final int[] cellStarts;
+  private final int[] slots;
+
+  /**
+   * Wrap an index that was already built, like one loaded from a snapshot. Nothing is checked or
+   * copied.
+   */
+  public GridIndex(RectangleStore store, int cellSize, int originX, int originY, int columns,
+                   int rows, int[] cellStarts, int[] slots) {
+    this.store = store;
+    this.cellSize = cellSize;
+    this.originX = originX;
+    this.originY = originY;
+    this.columns = columns;
+    this.rows = rows;
+    this.cellStarts = cellStarts;
+    this.slots = slots;
+  }
+
+  public static GridIndex build(RectangleStore store) {
+    return build(store, DEFAULT_CELL_SIZE);
+  }
+
+  /**
+   * Build an index over every slot in the store. If the rectangles are spread so far apart that
+   * there would be a lot more cells than rectangles, the cells are made bigger.
+   *
+   * @param store    store to index
+   * @param cellSize preferred size of a cell
+   * @return the index
+   */
+  public static GridIndex build(RectangleStore store, int cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("Cell size must be positive, got " + cellSize);
+    }
+    int size = store.size();
+    if (0 == size) {
+      return new GridIndex(store, cellSize, 0, 0, 1, 1, new int[2], new int[0]);
+    }
+    long minX = Long.MAX_VALUE;
+    long minY = Long.MAX_VALUE;
+    long maxX = Long.MIN_VALUE;
+    long maxY = Long.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      minX = Math.min(minX, store.getX(i));
+      minY = Math.min(minY, store.getY(i));
+      maxX = Math.max(maxX, (long) store.getX(i) + store.getWidth(i));
+      maxY = Math.max(maxY, (long) store.getY(i) + store.getLength(i));
+    }
+    long maxCells = Math.max(1024L, 4L * size);
+    long columns = (maxX - minX) / cellSize + 1;
+    long rows = (maxY - minY) / cellSize + 1;
+    while (columns * rows > maxCells) {
+      cellSize *= 2;
+      columns = (maxX - minX) / cellSize + 1;
+      rows = (maxY - minY) / cellSize + 1;
+    }
+
+    // First pass counts the slots in each cell, the second puts them in place
+    GridIndex index = new GridIndex(store, cellSize, (int) minX, (int) minY, (int) columns,
+        (int) rows, new int[(int) (columns * rows) + 1], null);
+    int[] cellStarts = index.cellStarts;
+    for (int i = 0; i < size; i++) {
+      index.forEachCell(i, cell -> cellStarts[cell + 1]++);
+    }
+    for (int cell = 0; cell < cellStarts.length - 1; cell++) {
+      cellStarts[cell + 1] += cellStarts[cell];
+    }
+    int[] slots = new int[cellStarts[cellStarts.length - 1]];
+    int[] next = Arrays.copyOf(cellStarts, cellStarts.length - 1);
+    for (int i = 0; i < size; i++) {
+      int slot = i;
+      index.forEachCell(i, cell -> slots[next[cell]++] = slot);
+    }
+    return new GridIndex(store, index.cellSize, index.originX, index.originY, index.columns,
+        index.rows, cellStarts, slots);
+  }
+
+  /**
+   * Find every slot whose closed bounds overlap or touch the given area, so everything that could
+   * intersect, contain or be adjacent to it. Each slot is reported once, from the first cell it
+   * shares with the area.
+   * <p>
+   * Only as many slots as fit are written, but all of them are counted, so a caller can start with
+   * a small array and grow it when the count comes back bigger.
+   *
+   * @param out array to write the slots into
+   * @return how many slots were found, which can be more than fit in out
+   */
+  public int findTouching(int x, int y, int width, int length, int[] out) {
+    long right = (long) x + width;
+    long bottom = (long) y + length;
+    int minColumn = Math.max(0, column(x));
+    int maxColumn = Math.min(columns - 1, column(right));
+    int minRow = Math.max(0, row(y));
+    int maxRow = Math.min(rows - 1, row(bottom));
+    int count = 0;
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        int cell = row * columns + column;
+        for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++) {
+          int slot = slots[i];
+          int sx = store.getX(slot);
+          int sy = store.getY(slot);
+          if (column != Math.max(minColumn, column(sx)) || row != Math.max(minRow, row(sy))) {
+            continue;
+          }
+          if (sx <= right && x <= (long) sx + store.getWidth(slot)
+              && sy <= bottom && y <= (long) sy + store.getLength(slot)) {
+            if (count < out.length) {
+              out[count] = slot;
+            }
+            count++;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // Same, for the rectangle in a slot. The slot itself is included.
+  public int findTouching(int slot, int[] out) {
+    return findTouching(store.getX(slot), store.getY(slot), store.getWidth(slot),
+        store.getLength(slot), out);
+  }
+
+  public RectangleStore getStore() {
+    return store;
+  }
+
+  public int getCellSize() {
+    return cellSize;
+  }
+
+  public int getOriginX() {
+    return originX;
+  }
+
+  public int getOriginY() {
+    return originY;
+  }
+
+  public int getColumns() {
+    return columns;
+  }
+
+  public int getRows() {
+    return rows;
+  }
+
+  // Not copied, don't change them
+  public int[] getCellStarts() {
+    return cellStarts;
+  }
+
+  public int[] getSlots() {
+    return slots;
+  }
+
+  private void forEachCell(int slot, IntConsumer action) {
+    int minColumn = column(store.getX(slot));
+    int maxColumn = column((long) store.getX(slot) + store.getWidth(slot));
+    int minRow = row(store.getY(slot));
+    int maxRow = row((long) store.getY(slot) + store.getLength(slot));
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        action.accept(row * columns + column);
+      }
+    }
+  }
+
+  // Can be outside the grid for query areas, so callers clamp
+  private int column(long x) {
+    return (int) Math.max(-1, Math.min(columns, Math.floorDiv(x - originX, (long) cellSize)));
+  }
+
+  private int row(long y) {
+    return (int) Math.max(-1, Math.min(rows, Math.floorDiv(y - originY, (long) cellSize)));
+  }
+}
@@ -0,0 +1,217 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.metrics.LatencyHistogram;
+import ca.marcelli.metrics.Metrics;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Runs an evaluation on a fork join pool, so big scenes use every core and the caller doesn't have to
+ * wait for it.
+ * <p>
+ * The rectangles are split in halves until the pieces are small enough, and each piece is evaluated
+ * on its own. As soon as a piece is done its result is handed to the listener, so results can be
+ * shown while the rest is still running. Pieces finish in any order.
+ * <p>
+ * An evaluation can be cancelled at any point. Pieces that haven't started are skipped, but a piece
+ * that's already running still finishes, so the listener should check
+ * {@link Evaluation#isCancelled()} before using what it gets.
+ * <p>
+ * The evaluation adds up what every piece did, including the ones with nothing to report, so once
+ * it's done it can say how long it took and where the time went.
+ */
+public class ParallelEvaluator {
+
+  // Small enough to spread work over all cores, big enough that splitting isn't the main cost
+  private static final int DEFAULT_PARTITION_SIZE = 1024;
+  // From the start of an evaluation until its last piece is done, cancelled ones aren't recorded
+  private static final LatencyHistogram EVALUATION_LATENCY = Metrics.histogram("evaluate.total");
+
+  private final RelationshipEvaluator evaluator;
+  private final ForkJoinPool pool;
+  private final int partitionSize;
+
+  public ParallelEvaluator() {
+    this(new RelationshipEvaluator(), ForkJoinPool.commonPool());
+  }
+
+  public ParallelEvaluator(RelationshipEvaluator evaluator, ForkJoinPool pool) {
+    this(evaluator, pool, DEFAULT_PARTITION_SIZE);
+  }
+
+  public ParallelEvaluator(RelationshipEvaluator evaluator, ForkJoinPool pool, int partitionSize) {
+    if (partitionSize <= 0) {
+      throw new IllegalArgumentException("Partition size must be positive, got " + partitionSize);
+    }
+    this.evaluator = evaluator;
+    this.pool = pool;
+    this.partitionSize = partitionSize;
+  }
+
+  /**
+   * Start evaluating the target against the others in the background. The list must not change
+   * while the evaluation runs, so pass a copy if the original could, or a {@link SceneStore}
+   * snapshot.
+   *
+   * @param target   rectangle being evaluated
+   * @param others   rectangles to check it against
+   * @param listener called from pool threads with each partial result, never with an empty one
+   * @return the running evaluation
+   */
+  public Evaluation evaluate(DrawRectangle target, List<DrawRectangle> others,
+                             BiConsumer<Evaluation, EvaluationResult> listener) {
+    return evaluate(target, others, listener, evaluation -> {
+    });
+  }
+
+  /**
+   * Same as {@link #evaluate(DrawRectangle, List, BiConsumer)}, but also says when it's done.
+   *
+   * @param target   rectangle being evaluated
+   * @param others   rectangles to check it against
+   * @param listener called from pool threads with each partial result, never with an empty one
+   * @param onDone   called from a pool thread once every piece is done, unless it was cancelled
+   * @return the running evaluation
+   */
+  public Evaluation evaluate(DrawRectangle target, List<DrawRectangle> others,
+                             BiConsumer<Evaluation, EvaluationResult> listener,
+                             Consumer<Evaluation> onDone) {
+    Evaluation evaluation = new Evaluation(target, onDone);
+    evaluation.task = new Partition(evaluation, target, others, listener);
+    pool.execute(evaluation.task);
+    return evaluation;
+  }
+
+  /**
+   * Handle on a running evaluation.
+   */
+  public static final class Evaluation {
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final DrawRectangle target;
+    private final Consumer<Evaluation> onDone;
+    private final long start = System.nanoTime();
+    private final LongAdder pairsChecked = new LongAdder();
+    private final LongAdder relationshipsFound = new LongAdder();
+    private final AtomicLongArray phaseNanos =
+        new AtomicLongArray(EvaluationPhase.values().length);
+    private volatile boolean phaseTimed;
+    private volatile long elapsedNanos = -1;
+    private RecursiveAction task;
+
+    private Evaluation(DrawRectangle target, Consumer<Evaluation> onDone) {
+      this.target = target;
+      this.onDone = onDone;
+    }
+
+    public DrawRectangle getTarget() {
+      return target;
+    }
+
+    // Totals so far, final once it's done
+    public long getPairsChecked() {
+      return pairsChecked.sum();
+    }
+
+    public long getRelationshipsFound() {
+      return relationshipsFound.sum();
+    }
+
+    public boolean isPhaseTimed() {
+      return phaseTimed;
+    }
+
+    /**
+     * Time spent in a phase, added up over every piece, so with several threads it can be more than
+     * the elapsed time.
+     */
+    public long getPhaseNanos(EvaluationPhase phase) {
+      return phaseNanos.get(phase.ordinal());
+    }
+
+    /**
+     * @return how long it took from start to the last piece, or -1 if it isn't done
+     */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    private void add(EvaluationResult result) {
+      pairsChecked.add(result.getPairsChecked());
+      relationshipsFound.add(result.getRelationships().size());
+      if (result.isPhaseTimed()) {
+        phaseTimed = true;
+        for (EvaluationPhase phase : EvaluationPhase.values()) {
+          phaseNanos.addAndGet(phase.ordinal(), result.getPhaseNanos(phase));
+        }
+      }
+    }
+
+    public void cancel() {
+      cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+      return cancelled.get();
+    }
+
+    public boolean isDone() {
+      return task.isDone();
+    }
+
+    // Wait for every piece to finish or be skipped
+    public void join() {
+      task.quietlyJoin();
+    }
+  }
+
+  private class Partition extends RecursiveAction {
+    private final Evaluation evaluation;
+    private final DrawRectangle target;
+    private final List<DrawRectangle> others;
+    private final BiConsumer<Evaluation, EvaluationResult> listener;
+
+    Partition(Evaluation evaluation, DrawRectangle target, List<DrawRectangle> others,
+              BiConsumer<Evaluation, EvaluationResult> listener) {
+      this.evaluation = evaluation;
+      this.target = target;
+      this.others = others;
+      this.listener = listener;
+    }
+
+    @Override
+    protected void compute() {
+      computePiece();
+      // The first piece only returns once every piece under it has, so that's the whole evaluation
+      if (evaluation.task == this && !evaluation.isCancelled()) {
+        evaluation.elapsedNanos = System.nanoTime() - evaluation.start;
+        EVALUATION_LATENCY.record(evaluation.elapsedNanos);
+        evaluation.onDone.accept(evaluation);
+      }
+    }
+
+    private void computePiece() {
+      if (evaluation.isCancelled()) {
+        return;
+      }
+      int size = others.size();
+      if (size > partitionSize) {
+        int middle = size / 2;
+        invokeAll(new Partition(evaluation, target, others.subList(0, middle), listener),
+            new Partition(evaluation, target, others.subList(middle, size), listener));
+        return;
+      }
+      EvaluationResult result = evaluator.evaluate(target, others);
+      evaluation.add(result);
+      if (!result.getRelationships().isEmpty() && !evaluation.isCancelled()) {
+        listener.accept(evaluation, result);
+      }
+    }
+  }
+}
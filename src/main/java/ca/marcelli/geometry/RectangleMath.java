@@ -0,0 +1,226 @@
+package ca.marcelli.geometry;
+
+/**
+ * Rectangle predicates on plain coordinates, so hot loops don't need rectangle objects at all.
+ * <p>
+ * Rectangles are given as x, y, width, length, the same as DrawRectangle, with y growing downwards.
+ * The rules match DrawRectangle: intersection needs an overlap with some area, containment is an
+ * intersection equal to the contained rectangle, and adjacency is sharing part of a side, with some
+ * length, without intersecting.
+ */
+public final class RectangleMath {
+
+  /**
+   * Most records {@link #crossings} can write, four shared sides and eight points.
+   */
+  public static final int MAX_CROSSING_RECORDS = 12;
+
+  private RectangleMath() {
+  }
+
+  public static boolean intersects(int ax, int ay, int aw, int al, int bx, int by, int bw,
+                                   int bl) {
+    return Math.max(ax, bx) < Math.min(ax + aw, bx + bw)
+        && Math.max(ay, by) < Math.min(ay + al, by + bl);
+  }
+
+  /**
+   * Work out the intersection of a and b without creating anything.
+   *
+   * @param out array of at least 4 to write the intersection's x, y, width and length to, only
+   *            written if there is an intersection
+   * @return true if they intersect
+   */
+  public static boolean intersection(int ax, int ay, int aw, int al, int bx, int by, int bw, int bl,
+                                     int[] out) {
+    int leftXPoint = Math.max(ax, bx);
+    int rightXPoint = Math.min(ax + aw, bx + bw);
+    int topYPoint = Math.max(ay, by);
+    int bottomYPoint = Math.min(ay + al, by + bl);
+    if (leftXPoint >= rightXPoint || topYPoint >= bottomYPoint) {
+      return false;
+    }
+    out[0] = leftXPoint;
+    out[1] = topYPoint;
+    out[2] = rightXPoint - leftXPoint;
+    out[3] = bottomYPoint - topYPoint;
+    return true;
+  }
+
+  /**
+   * True if a contains b. Like DrawRectangle this needs an actual intersection, so a rectangle with
+   * no area is never contained.
+   */
+  public static boolean contains(int ax, int ay, int aw, int al, int bx, int by, int bw, int bl) {
+    return bw > 0 && bl > 0 && ax <= bx && ay <= by && bx + bw <= ax + aw && by + bl <= ay + al;
+  }
+
+  /**
+   * True if a and b share some length of a side without intersecting. Only touching at a corner
+   * doesn't count.
+   */
+  public static boolean adjacent(int ax, int ay, int aw, int al, int bx, int by, int bw, int bl) {
+    // Sharing a vertical side, then the y ranges have to overlap with some length
+    if (ax + aw == bx || bx + bw == ax) {
+      return Math.max(ay, by) < Math.min(ay + al, by + bl);
+    }
+    // Sharing a horizontal side, same for the x ranges
+    if (ay + al == by || by + bl == ay) {
+      return Math.max(ax, bx) < Math.min(ax + aw, bx + bw);
+    }
+    return false;
+  }
+
+  /**
+   * Work out if and how a and b are adjacent, straight from their sides.
+   * <p>
+   * Two rectangles can only share a vertical side if the right side of one is on the left side of the
+   * other, and then the shared segment is the overlap of their y ranges. Same thing for horizontal
+   * sides with the x ranges. If that overlap has no length, they only touch at a corner, or not at all.
+   * The type then only depends on how the overlap compares to the two sides:
+   * <p>
+   * 1. The full side of both is proper
+   * 2. The full side of one is sub line
+   * 3. Otherwise it's partial
+   *
+   * @param out array of at least 4 to write the shared segment to, as x1, y1, x2, y2, only written
+   *            if they are adjacent
+   * @return the type, or null if they aren't adjacent
+   */
+  public static AdjacencyType adjacency(int ax, int ay, int aw, int al, int bx, int by, int bw,
+                                        int bl, int[] out) {
+    if (ax + aw == bx || bx + bw == ax) {
+      int from = Math.max(ay, by);
+      int to = Math.min(ay + al, by + bl);
+      if (from >= to) {
+        return null;
+      }
+      int x = ax + aw == bx ? bx : ax;
+      out[0] = x;
+      out[1] = from;
+      out[2] = x;
+      out[3] = to;
+      return adjacencyType(to - from, al, bl);
+    }
+    if (ay + al == by || by + bl == ay) {
+      int from = Math.max(ax, bx);
+      int to = Math.min(ax + aw, bx + bw);
+      if (from >= to) {
+        return null;
+      }
+      int y = ay + al == by ? by : ay;
+      out[0] = from;
+      out[1] = y;
+      out[2] = to;
+      out[3] = y;
+      return adjacencyType(to - from, aw, bw);
+    }
+    return null;
+  }
+
+  /**
+   * Find where the sides of two intersecting rectangles meet, straight from their edges.
+   * <p>
+   * Sides on the same line that overlap with some length give a segment. Otherwise a vertical side of
+   * one meets a horizontal side of the other at a point if each one reaches the other's line, so
+   * there are only eight side pairs to check for points, and four line pairs for each axis for
+   * segments. Points that are on a segment are left out since the segment already covers them.
+   * <p>
+   * Results are written to out as records of four ints, x1, y1, x2, y2. A point is a record where
+   * both ends are the same.
+   *
+   * @param out array of at least {@link #MAX_CROSSING_RECORDS} * 4 ints
+   * @return the number of records written
+   */
+  public static int crossings(int ax, int ay, int aw, int al, int bx, int by, int bw, int bl,
+                              int[] out) {
+    int count = 0;
+
+    // Shared vertical sides, overlap of the y ranges
+    int from = Math.max(ay, by);
+    int to = Math.min(ay + al, by + bl);
+    for (int i = 0; i < 2; i++) {
+      int va = i == 0 ? ax : ax + aw;
+      for (int j = 0; j < 2; j++) {
+        int vb = j == 0 ? bx : bx + bw;
+        if (va == vb && from < to && !hasRecord(out, count, va, from, va, to)) {
+          count = addRecord(out, count, va, from, va, to);
+        }
+      }
+    }
+    // Shared horizontal sides, overlap of the x ranges
+    from = Math.max(ax, bx);
+    to = Math.min(ax + aw, bx + bw);
+    for (int i = 0; i < 2; i++) {
+      int ha = i == 0 ? ay : ay + al;
+      for (int j = 0; j < 2; j++) {
+        int hb = j == 0 ? by : by + bl;
+        if (ha == hb && from < to && !hasRecord(out, count, from, ha, to, ha)) {
+          count = addRecord(out, count, from, ha, to, ha);
+        }
+      }
+    }
+    int segments = count;
+
+    // Vertical sides of a against horizontal sides of b, then the other way around
+    for (int i = 0; i < 2; i++) {
+      int va = i == 0 ? ax : ax + aw;
+      for (int j = 0; j < 2; j++) {
+        int hb = j == 0 ? by : by + bl;
+        if (bx <= va && va <= bx + bw && ay <= hb && hb <= ay + al
+            && !onSegment(out, segments, va, hb) && !hasRecord(out, count, va, hb, va, hb)) {
+          count = addRecord(out, count, va, hb, va, hb);
+        }
+      }
+    }
+    for (int i = 0; i < 2; i++) {
+      int vb = i == 0 ? bx : bx + bw;
+      for (int j = 0; j < 2; j++) {
+        int ha = j == 0 ? ay : ay + al;
+        if (ax <= vb && vb <= ax + aw && by <= ha && ha <= by + bl
+            && !onSegment(out, segments, vb, ha) && !hasRecord(out, count, vb, ha, vb, ha)) {
+          count = addRecord(out, count, vb, ha, vb, ha);
+        }
+      }
+    }
+    return count;
+  }
+
+  private static int addRecord(int[] out, int count, int x1, int y1, int x2, int y2) {
+    int i = count * 4;
+    out[i] = x1;
+    out[i + 1] = y1;
+    out[i + 2] = x2;
+    out[i + 3] = y2;
+    return count + 1;
+  }
+
+  private static boolean hasRecord(int[] out, int count, int x1, int y1, int x2, int y2) {
+    for (int i = 0; i < count * 4; i += 4) {
+      if (out[i] == x1 && out[i + 1] == y1 && out[i + 2] == x2 && out[i + 3] == y2) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Segments are always axis aligned with x1 <= x2 and y1 <= y2
+  private static boolean onSegment(int[] out, int segments, int x, int y) {
+    for (int i = 0; i < segments * 4; i += 4) {
+      if (out[i] <= x && x <= out[i + 2] && out[i + 1] <= y && y <= out[i + 3]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static AdjacencyType adjacencyType(int shared, int aSide, int bSide) {
+    if (shared == aSide && shared == bSide) {
+      return AdjacencyType.PROPER;
+    }
+    if (shared == aSide || shared == bSide) {
+      return AdjacencyType.SUB_LINE;
+    }
+    return AdjacencyType.PARTIAL;
+  }
+}
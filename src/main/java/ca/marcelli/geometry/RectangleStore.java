@@ -0,0 +1,314 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Compact store for a large number of rectangles, kept as parallel int columns instead of objects.
+ * <p>
+ * A rectangle is just an int id and its x, y, width and length, so a million rectangles take about
+ * 20MB, and a scan reads straight through the arrays without chasing pointers. Rectangles live in
+ * slots from 0 to size - 1. Removing a rectangle moves the last one into its slot, so slots aren't
+ * stable across removals but ids are.
+ * <p>
+ * The bulk queries write the matching slots into an array the caller owns, so they don't allocate
+ * anything and the same array can be reused across queries. Not thread safe for writes, but any
+ * number of threads can query at once while nothing is being added or removed.
+ */
+public class RectangleStore {
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private int[] ids;
+  private int[] xs;
+  private int[] ys;
+  private int[] widths;
+  private int[] lengths;
+  private int size;
+
+  public RectangleStore() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public RectangleStore(int capacity) {
+    ids = new int[capacity];
+    xs = new int[capacity];
+    ys = new int[capacity];
+    widths = new int[capacity];
+    lengths = new int[capacity];
+  }
+
+  /**
+   * Build a store around columns that already exist, like ones loaded from a file. The arrays are
+   * used as they are, not copied.
+   *
+   * @param size how many rectangles are in the columns
+   * @return a new store
+   */
+  public static RectangleStore wrap(int[] ids, int[] xs, int[] ys, int[] widths, int[] lengths,
+                                    int size) {
+    RectangleStore store = new RectangleStore(0);
+    store.ids = ids;
+    store.xs = xs;
+    store.ys = ys;
+    store.widths = widths;
+    store.lengths = lengths;
+    store.size = size;
+    return store;
+  }
+
+  /**
+   * Build a store from DrawRectangles. Ids are the position in the collection's iteration order.
+   *
+   * @param rectangles rectangles to copy
+   * @return a new store
+   */
+  public static RectangleStore fromRectangles(Collection<DrawRectangle> rectangles) {
+    RectangleStore store = new RectangleStore(Math.max(rectangles.size(), 1));
+    for (DrawRectangle r : rectangles) {
+      store.add(store.size(), r.getX(), r.getY(), r.getWidth(), r.getLength());
+    }
+    return store;
+  }
+
+  /**
+   * Add a rectangle.
+   *
+   * @return the slot it was put in
+   */
+  public int add(int id, int x, int y, int width, int length) {
+    if (size == ids.length) {
+      ensureCapacity(size + 1);
+    }
+    ids[size] = id;
+    xs[size] = x;
+    ys[size] = y;
+    widths[size] = width;
+    lengths[size] = length;
+    return size++;
+  }
+
+  /**
+   * Add a batch of rectangles given as columns, copied in one go instead of one at a time.
+   *
+   * @param count how many rectangles to take from the start of the columns
+   */
+  public void addAll(int[] ids, int[] xs, int[] ys, int[] widths, int[] lengths, int count) {
+    ensureCapacity(size + count);
+    System.arraycopy(ids, 0, this.ids, size, count);
+    System.arraycopy(xs, 0, this.xs, size, count);
+    System.arraycopy(ys, 0, this.ys, size, count);
+    System.arraycopy(widths, 0, this.widths, size, count);
+    System.arraycopy(lengths, 0, this.lengths, size, count);
+    size += count;
+  }
+
+  /**
+   * Remove the rectangle in the slot, by moving the last rectangle into it.
+   *
+   * @param slot slot to remove
+   */
+  public void remove(int slot) {
+    checkSlot(slot);
+    int last = --size;
+    ids[slot] = ids[last];
+    xs[slot] = xs[last];
+    ys[slot] = ys[last];
+    widths[slot] = widths[last];
+    lengths[slot] = lengths[last];
+  }
+
+  /**
+   * Grow the columns so at least this many rectangles fit without another copy. Handy before adding
+   * a lot of rectangles at once.
+   */
+  public void ensureCapacity(int capacity) {
+    if (capacity <= ids.length) {
+      return;
+    }
+    int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1));
+    ids = Arrays.copyOf(ids, newCapacity);
+    xs = Arrays.copyOf(xs, newCapacity);
+    ys = Arrays.copyOf(ys, newCapacity);
+    widths = Arrays.copyOf(widths, newCapacity);
+    lengths = Arrays.copyOf(lengths, newCapacity);
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public int getId(int slot) {
+    checkSlot(slot);
+    return ids[slot];
+  }
+
+  public int getX(int slot) {
+    checkSlot(slot);
+    return xs[slot];
+  }
+
+  public int getY(int slot) {
+    checkSlot(slot);
+    return ys[slot];
+  }
+
+  public int getWidth(int slot) {
+    checkSlot(slot);
+    return widths[slot];
+  }
+
+  public int getLength(int slot) {
+    checkSlot(slot);
+    return lengths[slot];
+  }
+
+  /**
+   * Find the slot holding an id. This is a linear scan, ids aren't indexed.
+   *
+   * @return the slot, or -1 if it isn't in the store
+   */
+  public int slotOf(int id) {
+    for (int i = 0; i < size; i++) {
+      if (ids[i] == id) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Find every rectangle intersecting the given bounds.
+   *
+   * @param out array to write the matching slots to, must hold at least size() entries
+   * @return how many slots were written
+   */
+  public int findIntersecting(int x, int y, int width, int length, int[] out) {
+    checkOutput(out);
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (RectangleMath.intersects(x, y, width, length, xs[i], ys[i], widths[i], lengths[i])) {
+        out[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Find every rectangle that the given bounds contain.
+   *
+   * @param out array to write the matching slots to, must hold at least size() entries
+   * @return how many slots were written
+   */
+  public int findContainedIn(int x, int y, int width, int length, int[] out) {
+    checkOutput(out);
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (RectangleMath.contains(x, y, width, length, xs[i], ys[i], widths[i], lengths[i])) {
+        out[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Find every rectangle that contains the given bounds.
+   *
+   * @param out array to write the matching slots to, must hold at least size() entries
+   * @return how many slots were written
+   */
+  public int findContaining(int x, int y, int width, int length, int[] out) {
+    checkOutput(out);
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (RectangleMath.contains(xs[i], ys[i], widths[i], lengths[i], x, y, width, length)) {
+        out[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Find every rectangle adjacent to the given bounds.
+   *
+   * @param out array to write the matching slots to, must hold at least size() entries
+   * @return how many slots were written
+   */
+  public int findAdjacent(int x, int y, int width, int length, int[] out) {
+    checkOutput(out);
+    int count = 0;
+    for (int i = 0; i < size; i++) {
+      if (RectangleMath.adjacent(x, y, width, length, xs[i], ys[i], widths[i], lengths[i])) {
+        out[count++] = i;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Same as {@link #findIntersecting(int, int, int, int, int[])} for a rectangle already in the
+   * store, leaving out the rectangle itself.
+   */
+  public int findIntersecting(int slot, int[] out) {
+    checkSlot(slot);
+    return withoutSlot(slot, findIntersecting(xs[slot], ys[slot], widths[slot], lengths[slot], out),
+        out);
+  }
+
+  /**
+   * Same as {@link #findAdjacent(int, int, int, int, int[])} for a rectangle already in the store.
+   * A rectangle is never adjacent to itself, so there's nothing to leave out.
+   */
+  public int findAdjacent(int slot, int[] out) {
+    checkSlot(slot);
+    return findAdjacent(xs[slot], ys[slot], widths[slot], lengths[slot], out);
+  }
+
+  /**
+   * Same as {@link #findContainedIn(int, int, int, int, int[])} for a rectangle already in the
+   * store, leaving out the rectangle itself.
+   */
+  public int findContainedIn(int slot, int[] out) {
+    checkSlot(slot);
+    return withoutSlot(slot, findContainedIn(xs[slot], ys[slot], widths[slot], lengths[slot], out),
+        out);
+  }
+
+  /**
+   * Same as {@link #findContaining(int, int, int, int, int[])} for a rectangle already in the
+   * store, leaving out the rectangle itself.
+   */
+  public int findContaining(int slot, int[] out) {
+    checkSlot(slot);
+    return withoutSlot(slot, findContaining(xs[slot], ys[slot], widths[slot], lengths[slot], out),
+        out);
+  }
+
+  // Results are in slot order, so the slot can only be in one place
+  private static int withoutSlot(int slot, int count, int[] out) {
+    int index = Arrays.binarySearch(out, 0, count, slot);
+    if (index < 0) {
+      return count;
+    }
+    System.arraycopy(out, index + 1, out, index, count - index - 1);
+    return count - 1;
+  }
+
+  private void checkSlot(int slot) {
+    if (slot < 0 || slot >= size) {
+      throw new IndexOutOfBoundsException("Slot " + slot + " out of bounds for size " + size);
+    }
+  }
+
+  private void checkOutput(int[] out) {
+    if (out.length < size) {
+      throw new IllegalArgumentException(
+          "Output holds " + out.length + " slots, but the store has " + size);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawPoint;
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.entities.DrawSegment;
+import ca.marcelli.entities.Drawable;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * One relationship between a pair of rectangles, read as "first KIND second". The adjacency type is
+ * only set for adjacent pairs.
+ * <p>
+ * Geometry is kept as plain coordinates: the overlap for intersections and containment, and the
+ * crossing points and segments, or the shared side for adjacency. Nothing is turned into drawables
+ * or text until something asks for it, most relationships are never shown.
+ */
+public final class Relationship {
+  private static final int[] NO_SEGMENTS = new int[0];
+
+  @Getter
+  private final DrawRectangle first;
+  @Getter
+  private final DrawRectangle second;
+  @Getter
+  private final RelationshipKind kind;
+  @Getter
+  private final AdjacencyType adjacency;
+  // x, y, width, length of the overlap, null for adjacency
+  private final int[] intersection;
+  // x1, y1, x2, y2 for each segment, a point is a segment with both ends the same
+  private final int[] segments;
+
+  public Relationship(DrawRectangle first, DrawRectangle second, RelationshipKind kind,
+                      AdjacencyType adjacency) {
+    this(first, second, kind, adjacency, null, NO_SEGMENTS);
+  }
+
+  /**
+   * @param intersection overlap as x, y, width, length, or null if they don't overlap
+   * @param segments     points and segments as x1, y1, x2, y2 each, not copied
+   */
+  public Relationship(DrawRectangle first, DrawRectangle second, RelationshipKind kind,
+                      AdjacencyType adjacency, int[] intersection, int[] segments) {
+    this.first = first;
+    this.second = second;
+    this.kind = kind;
+    this.adjacency = adjacency;
+    this.intersection = intersection;
+    this.segments = segments;
+  }
+
+  public boolean hasIntersection() {
+    return null != intersection;
+  }
+
+  /**
+   * Copy the overlap into an array.
+   *
+   * @param out array of at least 4 to get x, y, width, length
+   * @return false if there's no overlap, in which case out isn't touched
+   */
+  public boolean getIntersectionBounds(int[] out) {
+    if (null == intersection) {
+      return false;
+    }
+    System.arraycopy(intersection, 0, out, 0, 4);
+    return true;
+  }
+
+  public int getSegmentCount() {
+    return segments.length / 4;
+  }
+
+  /**
+   * Copy one point or segment into an array.
+   *
+   * @param index which one, below {@link #getSegmentCount()}
+   * @param out   array of at least 4 to get x1, y1, x2, y2
+   */
+  public void getSegment(int index, int[] out) {
+    System.arraycopy(segments, index * 4, out, 0, 4);
+  }
+
+  /**
+   * Build the overlap to fill, blue for containment and pink for intersections.
+   *
+   * @return a new rectangle, or null if they don't overlap
+   */
+  public DrawRectangle toIntersectionRectangle() {
+    if (null == intersection) {
+      return null;
+    }
+    DrawRectangle rectangle =
+        new DrawRectangle(intersection[0], intersection[1], intersection[2], intersection[3]);
+    rectangle.setColor(RelationshipKind.INTERSECTS == kind ? Color.PINK : Color.BLUE);
+    return rectangle;
+  }
+
+  /**
+   * Build the points and segments to highlight.
+   *
+   * @return new drawables, empty if there's nothing to highlight
+   */
+  public List<Drawable> toPointsAndSegments() {
+    List<Drawable> drawables = new ArrayList<>(getSegmentCount());
+    for (int i = 0; i < segments.length; i += 4) {
+      DrawPoint p1 = new DrawPoint(segments[i], segments[i + 1]);
+      if (segments[i] == segments[i + 2] && segments[i + 1] == segments[i + 3]) {
+        drawables.add(p1);
+      } else {
+        drawables.add(new DrawSegment(p1, new DrawPoint(segments[i + 2], segments[i + 3])));
+      }
+    }
+    return drawables;
+  }
+
+  /**
+   * Describe the relationship in a sentence, worked out every time it's called.
+   *
+   * @return plain text description
+   */
+  public String describe() {
+    String firstName = first.getName();
+    String secondName = second.getName();
+    switch (kind) {
+      case CONTAINS:
+        return String.format("%s contains %s", firstName, secondName);
+      case CONTAINED_BY:
+        return String.format("%s is contained within %s", firstName, secondName);
+      case ADJACENT:
+        return String.format("%s is %s to %s", secondName, adjacency.getLabel(), firstName);
+      case INTERSECTS:
+        StringBuilder text = new StringBuilder(
+            String.format("%s intersects with %s", secondName, firstName));
+        for (int i = 0; i < segments.length; i += 4) {
+          text.append(0 == i ? " " : ", ");
+          if (segments[i] == segments[i + 2] && segments[i + 1] == segments[i + 3]) {
+            text.append(String.format("at point (%d,%d)", segments[i], segments[i + 1]));
+          } else {
+            text.append(String.format("along all points from (%d,%d) to (%d,%d)", segments[i],
+                segments[i + 1], segments[i + 2], segments[i + 3]));
+          }
+        }
+        return text.toString();
+      default:
+        return toString();
+    }
+  }
+
+  @Override
+  public String toString() {
+    String kindText = null == adjacency ? kind.getLabel() : adjacency.getLabel();
+    return String.format("%s %s %s", first.getName(), kindText, second.getName());
+  }
+}
@@ -0,0 +1,198 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the relationship between pairs of rectangles, so evaluating the same rectangle again is
+ * just a lookup.
+ * <p>
+ * Pairs are keyed on both rectangles' names and geometry, in order, since the result depends on
+ * which one was evaluated. Pairs that turned out not to be related are remembered too, they're most
+ * of what an evaluation checks. Once the cache is full, the least recently used pair is dropped.
+ * <p>
+ * Safe to use from many threads. A pair being computed while its rectangle is invalidated can still
+ * be put back afterwards, but since the key includes the geometry it's never wrong, it just takes up
+ * room until it's evicted.
+ */
+public class RelationshipCache {
+
+  public static final int DEFAULT_MAX_SIZE = 100_000;
+
+  private final int maxSize;
+  private final LinkedHashMap<PairKey, Optional<Relationship>> entries;
+  // Keys each rectangle name is part of, so invalidating one doesn't need to scan everything
+  private final Map<String, Set<PairKey>> keysByName = new HashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public RelationshipCache() {
+    this(DEFAULT_MAX_SIZE);
+  }
+
+  public RelationshipCache(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("Max size must be positive, got " + maxSize);
+    }
+    this.maxSize = maxSize;
+    // Access order makes iteration start at the least recently used entry
+    this.entries = new LinkedHashMap<>(16, 0.75f, true);
+  }
+
+  /**
+   * Get the cached relationship for the pair, computing and caching it if it isn't there.
+   *
+   * @param target  rectangle being evaluated
+   * @param other   rectangle it's checked against
+   * @param compute works out the relationship, may return null if they aren't related
+   * @return the relationship, or null if they aren't related
+   */
+  public Relationship get(DrawRectangle target, DrawRectangle other,
+                          Supplier<Relationship> compute) {
+    PairKey key = new PairKey(target, other);
+    Optional<Relationship> cached;
+    synchronized (this) {
+      cached = entries.get(key);
+    }
+    if (null != cached) {
+      hits.increment();
+      return cached.orElse(null);
+    }
+    misses.increment();
+    // Computed outside the lock so other threads aren't held up by it
+    Relationship relationship = compute.get();
+    put(key, Optional.ofNullable(relationship));
+    return relationship;
+  }
+
+  /**
+   * Drop every cached pair the named rectangle is part of.
+   *
+   * @param name name of the rectangle that changed
+   */
+  public synchronized void invalidate(String name) {
+    Set<PairKey> keys = keysByName.remove(name);
+    if (null == keys) {
+      return;
+    }
+    for (PairKey key : keys) {
+      entries.remove(key);
+      // Also forget it under the other rectangle's name
+      String otherName = name.equals(key.targetName) ? key.otherName : key.targetName;
+      Set<PairKey> otherKeys = keysByName.get(otherName);
+      if (null != otherKeys) {
+        otherKeys.remove(key);
+        if (otherKeys.isEmpty()) {
+          keysByName.remove(otherName);
+        }
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    keysByName.clear();
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  private synchronized void put(PairKey key, Optional<Relationship> relationship) {
+    if (null != entries.put(key, relationship)) {
+      return;
+    }
+    keysByName.computeIfAbsent(key.targetName, k -> new HashSet<>()).add(key);
+    keysByName.computeIfAbsent(key.otherName, k -> new HashSet<>()).add(key);
+    if (entries.size() > maxSize) {
+      Iterator<PairKey> eldest = entries.keySet().iterator();
+      PairKey evicted = eldest.next();
+      eldest.remove();
+      forget(evicted.targetName, evicted);
+      forget(evicted.otherName, evicted);
+      evictions.increment();
+    }
+  }
+
+  private void forget(String name, PairKey key) {
+    Set<PairKey> keys = keysByName.get(name);
+    if (null != keys) {
+      keys.remove(key);
+      if (keys.isEmpty()) {
+        keysByName.remove(name);
+      }
+    }
+  }
+
+  private static final class PairKey {
+    private final String targetName;
+    private final int targetX;
+    private final int targetY;
+    private final int targetWidth;
+    private final int targetLength;
+    private final String otherName;
+    private final int otherX;
+    private final int otherY;
+    private final int otherWidth;
+    private final int otherLength;
+    private final int hash;
+
+    PairKey(DrawRectangle target, DrawRectangle other) {
+      targetName = target.getName();
+      targetX = target.getX();
+      targetY = target.getY();
+      targetWidth = target.getWidth();
+      targetLength = target.getLength();
+      otherName = other.getName();
+      otherX = other.getX();
+      otherY = other.getY();
+      otherWidth = other.getWidth();
+      otherLength = other.getLength();
+      hash = Objects.hash(targetName, targetX, targetY, targetWidth, targetLength, otherName, otherX,
+          otherY, otherWidth, otherLength);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof PairKey)) {
+        return false;
+      }
+      PairKey key = (PairKey) o;
+      return targetX == key.targetX && targetY == key.targetY && targetWidth == key.targetWidth
+          && targetLength == key.targetLength && otherX == key.otherX && otherY == key.otherY
+          && otherWidth == key.otherWidth && otherLength == key.otherLength
+          && Objects.equals(targetName, key.targetName) && Objects.equals(otherName, key.otherName);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.metrics.Counter;
+import ca.marcelli.metrics.LatencyHistogram;
+import ca.marcelli.metrics.Metrics;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Evaluates a rectangle against other rectangles, the logic behind the Evaluate button.
+ * <p>
+ * It holds no state and only reads the rectangles it's given, so it can be called from any thread,
+ * including several at once, as long as nobody is changing those rectangles at the same time.
+ * Nothing in here touches Swing, the caller decides how to show the result.
+ * <p>
+ * With a cache, pairs that were already evaluated are looked up instead of worked out again.
+ * <p>
+ * Phase timing can be switched on to see where an evaluation spends its time, see
+ * {@link EvaluationResult#getPhaseNanos}. It reads the clock a few times per pair, so it's off by
+ * default.
+ */
+public class RelationshipEvaluator {
+
+  private static final int[] NO_SEGMENTS = new int[0];
+  private static final Counter PAIRS_CHECKED = Metrics.counter("evaluate.pairs");
+  private static final Counter RELATIONSHIPS_FOUND = Metrics.counter("evaluate.relationships");
+  // Only intersections that aren't containment get this far, so it's worth the clock reads
+  private static final LatencyHistogram CROSSINGS_LATENCY = Metrics.histogram("geometry.crossings");
+
+  private final RelationshipCache cache;
+  private volatile boolean timingPhases;
+
+  public RelationshipEvaluator() {
+    this(null);
+  }
+
+  /**
+   * @param cache cache to remember pairs in, or null to always work them out
+   */
+  public RelationshipEvaluator(RelationshipCache cache) {
+    this.cache = cache;
+  }
+
+  public boolean isTimingPhases() {
+    return timingPhases;
+  }
+
+  /**
+   * Turn phase timing on or off, for evaluations started after this.
+   *
+   * @param timingPhases true to time each phase
+   */
+  public void setTimingPhases(boolean timingPhases) {
+    this.timingPhases = timingPhases;
+  }
+
+  /**
+   * Evaluate the target against every other rectangle. The target itself is skipped if it's in the
+   * collection.
+   *
+   * @param target rectangle being evaluated
+   * @param others rectangles to check it against
+   * @return the relationships found, in the order of the collection
+   */
+  public EvaluationResult evaluate(DrawRectangle target, Collection<DrawRectangle> others) {
+    List<Relationship> relationships = new ArrayList<>();
+    int[] scratch = newScratch();
+    long[] phaseNanos = timingPhases ? new long[EvaluationPhase.values().length] : null;
+    int checked = 0;
+    for (DrawRectangle other : others) {
+      if (other == target) {
+        continue;
+      }
+      checked++;
+      Relationship relationship = null == cache
+          ? evaluatePair(target, other, scratch, phaseNanos)
+          : cache.get(target, other, () -> evaluatePair(target, other, scratch, phaseNanos));
+      if (null != relationship) {
+        relationships.add(relationship);
+      }
+    }
+    PAIRS_CHECKED.add(checked);
+    RELATIONSHIPS_FOUND.add(relationships.size());
+    return new EvaluationResult(target, relationships, checked, phaseNanos);
+  }
+
+  /**
+   * Evaluate a single pair.
+   * <p>
+   * Since containment is just intersection but with equality to one of the original rectangles, only
+   * rectangles that actually had an intersection need to be checked for it. Adjacency can only happen
+   * when there's no intersection.
+   *
+   * @param target rectangle being evaluated
+   * @param other  rectangle to check it against
+   * @return the relationship, or null if they aren't related
+   */
+  public Relationship evaluatePair(DrawRectangle target, DrawRectangle other) {
+    if (null != cache) {
+      return cache.get(target, other, () -> evaluatePair(target, other, newScratch(), null));
+    }
+    return evaluatePair(target, other, newScratch(), null);
+  }
+
+  // Big enough for the bounds, the shared side, or every crossing
+  private static int[] newScratch() {
+    return new int[RectangleMath.MAX_CROSSING_RECORDS * 4];
+  }
+
+  // Everything is worked out into the scratch array, and only the coordinates that are part of the
+  // result get copied out of it. Phases are only timed when there's somewhere to add them up.
+  private Relationship evaluatePair(DrawRectangle target, DrawRectangle other, int[] scratch,
+                                    long[] phaseNanos) {
+    long time = null == phaseNanos ? 0 : System.nanoTime();
+    boolean intersects = other.getIntersectionBounds(target, scratch);
+    time = lap(phaseNanos, EvaluationPhase.INTERSECTION, time);
+    if (intersects) {
+      int[] intersection = Arrays.copyOf(scratch, 4);
+      RelationshipKind kind = target.hasContainmentWith(other) ? RelationshipKind.CONTAINS
+          : other.hasContainmentWith(target) ? RelationshipKind.CONTAINED_BY : null;
+      time = lap(phaseNanos, EvaluationPhase.CONTAINMENT, time);
+      if (null != kind) {
+        return new Relationship(target, other, kind, null, intersection, NO_SEGMENTS);
+      }
+      long start = Metrics.startTimer();
+      int count = RectangleMath.crossings(other.getX(), other.getY(), other.getWidth(),
+          other.getLength(), target.getX(), target.getY(), target.getWidth(), target.getLength(),
+          scratch);
+      CROSSINGS_LATENCY.recordSince(start);
+      int[] segments = Arrays.copyOf(scratch, count * 4);
+      lap(phaseNanos, EvaluationPhase.POINT_EXTRACTION, time);
+      return new Relationship(target, other, RelationshipKind.INTERSECTS, null, intersection,
+          segments);
+    }
+
+    // Bounds aren't needed anymore, so the shared segment can go in the same array
+    AdjacencyType adjacency = other.getAdjacency(target, scratch);
+    lap(phaseNanos, EvaluationPhase.ADJACENCY, time);
+    if (null == adjacency) {
+      return null;
+    }
+    return new Relationship(target, other, RelationshipKind.ADJACENT, adjacency, null,
+        Arrays.copyOf(scratch, 4));
+  }
+
+  // Add the time since the last lap to the phase, and start the next one
+  private static long lap(long[] phaseNanos, EvaluationPhase phase, long since) {
+    if (null == phaseNanos) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    phaseNanos[phase.ordinal()] += now - since;
+    return now;
+  }
+}
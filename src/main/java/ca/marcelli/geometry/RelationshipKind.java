@@ -0,0 +1,21 @@
+package ca.marcelli.geometry;
+
+/**
+ * The ways two rectangles can relate to each other, read as "first KIND second".
+ */
+public enum RelationshipKind {
+  INTERSECTS("Intersects"),
+  CONTAINS("Contains"),
+  CONTAINED_BY("Contained by"),
+  ADJACENT("Adjacent");
+
+  private final String label;
+
+  RelationshipKind(String label) {
+    this.label = label;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+}
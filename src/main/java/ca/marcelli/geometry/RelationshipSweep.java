@@ -0,0 +1,102 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Finds every intersection, containment and adjacency in a scene in one pass.
+ * <p>
+ * Works conceptually by sliding a vertical line from left to right across the scene. A rectangle
+ * becomes active when the line reaches its left side and stops being active after the line passes its
+ * right side. When a rectangle becomes active, the only rectangles it can touch are the active ones
+ * whose y range overlaps its own, and those are found with an interval tree. Insertions are handled
+ * before removals at the same x, so rectangles that only share a vertical side still meet.
+ * <p>
+ * That makes the search O((n + k) log n) for k touching pairs, instead of checking all n^2 pairs.
+ * Each touching pair is then classified with the same checks Evaluate uses, so results match it
+ * exactly, and each unordered pair is reported once.
+ */
+public final class RelationshipSweep {
+
+  private static final long REMOVE = 1L << 31;
+
+  private RelationshipSweep() {
+  }
+
+  /**
+   * Find all relationships between the rectangles. For a pair, the rectangle that comes first in the
+   * collection is the first rectangle in the relationship.
+   *
+   * @param rectangles rectangles in the scene
+   * @return one relationship for every related pair
+   */
+  public static List<Relationship> findAll(Collection<DrawRectangle> rectangles) {
+    DrawRectangle[] scene = rectangles.toArray(new DrawRectangle[0]);
+    int n = scene.length;
+    int[] top = new int[n];
+    int[] bottom = new int[n];
+
+    // Two events per rectangle, packed so a plain sort orders them by x, then inserts before removes.
+    // The index is stored in the low 31 bits.
+    long[] events = new long[n * 2];
+    for (int i = 0; i < n; i++) {
+      DrawRectangle r = scene[i];
+      top[i] = r.getY();
+      bottom[i] = r.getY() + r.getLength();
+      events[i * 2] = ((long) r.getX() << 32) | i;
+      events[i * 2 + 1] = ((long) (r.getX() + r.getWidth()) << 32) | REMOVE | i;
+    }
+    Arrays.sort(events);
+
+    List<Relationship> relationships = new ArrayList<>();
+    ActiveIntervals active = new ActiveIntervals(top, bottom);
+    int[] segment = new int[4];
+    for (long event : events) {
+      int index = (int) (event & (REMOVE - 1));
+      if ((event & REMOVE) != 0) {
+        active.remove(index);
+        continue;
+      }
+      active.forEachOverlapping(top[index], bottom[index], other -> {
+        Relationship relationship = index < other
+            ? classify(scene[index], scene[other], segment)
+            : classify(scene[other], scene[index], segment);
+        if (null != relationship) {
+          relationships.add(relationship);
+        }
+      });
+      active.insert(index);
+    }
+    return relationships;
+  }
+
+  /**
+   * Classify a single pair the same way Evaluate does. Intersection first, then containment both
+   * ways, and adjacency only if they don't intersect.
+   *
+   * @return the relationship, or null if the rectangles aren't related
+   */
+  static Relationship classify(DrawRectangle first, DrawRectangle second) {
+    return classify(first, second, new int[4]);
+  }
+
+  private static Relationship classify(DrawRectangle first, DrawRectangle second, int[] segment) {
+    if (first.intersects(second)) {
+      if (first.hasContainmentWith(second)) {
+        return new Relationship(first, second, RelationshipKind.CONTAINS, null);
+      }
+      if (second.hasContainmentWith(first)) {
+        return new Relationship(first, second, RelationshipKind.CONTAINED_BY, null);
+      }
+      return new Relationship(first, second, RelationshipKind.INTERSECTS, null);
+    }
+    AdjacencyType adjacency = second.getAdjacency(first, segment);
+    if (null == adjacency) {
+      return null;
+    }
+    return new Relationship(first, second, RelationshipKind.ADJACENT, adjacency);
+  }
+}
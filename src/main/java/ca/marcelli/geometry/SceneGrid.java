@@ -0,0 +1,258 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Grid over the rectangles of one {@link SceneStore.Snapshot}, and just as immutable.
+ * <p>
+ * Cells are the same as in {@link SpatialGrid}, each rectangle is in every cell its closed bounds
+ * touch, but cells are hashed into a fixed number of buckets instead of kept in a map. Buckets are
+ * arrays kept in chunks like the store's rectangles, so adding or removing a rectangle copies only
+ * the buckets and chunks it's in and leaves the grid it started from as it was. A bucket can hold
+ * rectangles from several cells, queries skip those the same way they skip duplicates.
+ * <p>
+ * The number of buckets is picked when the grid is built. Once there are a lot more rectangles than
+ * buckets, see {@link #isCrowded()}, it's worth building it again.
+ */
+final class SceneGrid {
+
+  private static final int CELL_SIZE = SpatialGrid.DEFAULT_CELL_SIZE;
+  private static final int CHUNK_SIZE = SceneStore.CHUNK_SIZE;
+  private static final int MAX_BUCKETS = 1 << 30;
+  // Rectangles per bucket, on average, before building again pays off
+  private static final int LOAD_FACTOR = 4;
+
+  private final DrawRectangle[][][] chunks;
+  private final int mask;
+  private final int size;
+
+  private SceneGrid(DrawRectangle[][][] chunks, int mask, int size) {
+    this.chunks = chunks;
+    this.mask = mask;
+    this.size = size;
+  }
+
+  /**
+   * Build a grid with about a bucket per rectangle.
+   *
+   * @param rectangles rectangles to put in it, which mustn't change while they're in it
+   * @return the grid
+   */
+  static SceneGrid build(List<DrawRectangle> rectangles) {
+    int buckets = CHUNK_SIZE;
+    while (buckets < rectangles.size() && buckets < MAX_BUCKETS) {
+      buckets *= 2;
+    }
+    int mask = buckets - 1;
+
+    // First pass counts the rectangles in each bucket, the second puts them in place
+    int[] counts = new int[buckets];
+    for (DrawRectangle rectangle : rectangles) {
+      for (int bucket : bucketsOf(rectangle, mask)) {
+        counts[bucket]++;
+      }
+    }
+    DrawRectangle[][][] chunks = new DrawRectangle[buckets / CHUNK_SIZE][CHUNK_SIZE][];
+    for (int bucket = 0; bucket < buckets; bucket++) {
+      if (counts[bucket] > 0) {
+        chunks[bucket / CHUNK_SIZE][bucket % CHUNK_SIZE] = new DrawRectangle[counts[bucket]];
+      }
+    }
+    for (DrawRectangle rectangle : rectangles) {
+      for (int bucket : bucketsOf(rectangle, mask)) {
+        chunks[bucket / CHUNK_SIZE][bucket % CHUNK_SIZE][--counts[bucket]] = rectangle;
+      }
+    }
+    return new SceneGrid(chunks, mask, rectangles.size());
+  }
+
+  /**
+   * A grid with the rectangle added, this one is left alone.
+   */
+  SceneGrid insert(DrawRectangle rectangle) {
+    DrawRectangle[][][] copy = chunks.clone();
+    boolean[] copied = new boolean[chunks.length];
+    for (int bucket : bucketsOf(rectangle, mask)) {
+      DrawRectangle[][] chunk = chunkToChange(copy, copied, bucket);
+      DrawRectangle[] old = chunk[bucket % CHUNK_SIZE];
+      DrawRectangle[] grown =
+          null == old ? new DrawRectangle[1] : Arrays.copyOf(old, old.length + 1);
+      grown[grown.length - 1] = rectangle;
+      chunk[bucket % CHUNK_SIZE] = grown;
+    }
+    return new SceneGrid(copy, mask, size + 1);
+  }
+
+  /**
+   * A grid without the rectangle, matched by identity like {@link SpatialGrid#remove}. This one is
+   * left alone.
+   */
+  SceneGrid remove(DrawRectangle rectangle) {
+    DrawRectangle[][][] copy = chunks.clone();
+    boolean[] copied = new boolean[chunks.length];
+    boolean removed = false;
+    for (int bucket : bucketsOf(rectangle, mask)) {
+      DrawRectangle[] old = chunks[bucket / CHUNK_SIZE][bucket % CHUNK_SIZE];
+      int at = indexOf(old, rectangle);
+      if (at < 0) {
+        continue;
+      }
+      DrawRectangle[] shrunk = null;
+      if (old.length > 1) {
+        shrunk = new DrawRectangle[old.length - 1];
+        System.arraycopy(old, 0, shrunk, 0, at);
+        System.arraycopy(old, at + 1, shrunk, at, old.length - at - 1);
+      }
+      chunkToChange(copy, copied, bucket)[bucket % CHUNK_SIZE] = shrunk;
+      removed = true;
+    }
+    return removed ? new SceneGrid(copy, mask, size - 1) : this;
+  }
+
+  /**
+   * Whether there are so many rectangles per bucket that the grid should be built again.
+   */
+  boolean isCrowded() {
+    return mask < MAX_BUCKETS - 1 && size > (long) LOAD_FACTOR * (mask + 1);
+  }
+
+  /**
+   * Find every rectangle whose closed bounds overlap or touch the given area, each once, same as
+   * {@link SpatialGrid#query(int, int, int, int)}.
+   *
+   * @return the candidates, in no particular order
+   */
+  List<DrawRectangle> query(int x, int y, int width, int length) {
+    List<DrawRectangle> result = new ArrayList<>();
+    long right = (long) x + width;
+    long bottom = (long) y + length;
+    int minCellX = cellOf(x);
+    int maxCellX = cellOf(right);
+    int minCellY = cellOf(y);
+    int maxCellY = cellOf(bottom);
+
+    // An area with more cells than there are buckets would visit buckets more than once, so go
+    // through each bucket once instead, and report a rectangle from the bucket of its first shared
+    // cell
+    if (cellCount(minCellX, maxCellX, minCellY, maxCellY) > mask) {
+      for (int bucket = 0; bucket <= mask; bucket++) {
+        DrawRectangle[] rectangles = chunks[bucket / CHUNK_SIZE][bucket % CHUNK_SIZE];
+        if (null == rectangles) {
+          continue;
+        }
+        for (DrawRectangle r : rectangles) {
+          if (touches(r, x, y, right, bottom) && bucket == bucketOf(
+              Math.max(minCellX, cellOf(r.getX())), Math.max(minCellY, cellOf(r.getY())), mask)) {
+            result.add(r);
+          }
+        }
+      }
+      return result;
+    }
+
+    for (int cx = minCellX; cx <= maxCellX; cx++) {
+      for (int cy = minCellY; cy <= maxCellY; cy++) {
+        int bucket = bucketOf(cx, cy, mask);
+        DrawRectangle[] rectangles = chunks[bucket / CHUNK_SIZE][bucket % CHUNK_SIZE];
+        if (null == rectangles) {
+          continue;
+        }
+        for (DrawRectangle r : rectangles) {
+          // Only report from the first cell shared by both, which also skips the rectangles from
+          // other cells that hash to this bucket
+          if (cx != Math.max(minCellX, cellOf(r.getX()))
+              || cy != Math.max(minCellY, cellOf(r.getY()))) {
+            continue;
+          }
+          if (touches(r, x, y, right, bottom)) {
+            result.add(r);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  int size() {
+    return size;
+  }
+
+  // Copy the chunk the first time this change touches it, the old one may be in another grid
+  private static DrawRectangle[][] chunkToChange(DrawRectangle[][][] chunks, boolean[] copied,
+                                                 int bucket) {
+    int chunk = bucket / CHUNK_SIZE;
+    if (!copied[chunk]) {
+      chunks[chunk] = chunks[chunk].clone();
+      copied[chunk] = true;
+    }
+    return chunks[chunk];
+  }
+
+  // Every bucket the rectangle goes in, each once, in order
+  private static int[] bucketsOf(DrawRectangle rectangle, int mask) {
+    int minCellX = cellOf(rectangle.getX());
+    int maxCellX = cellOf((long) rectangle.getX() + rectangle.getWidth());
+    int minCellY = cellOf(rectangle.getY());
+    int maxCellY = cellOf((long) rectangle.getY() + rectangle.getLength());
+    long cells = cellCount(minCellX, maxCellX, minCellY, maxCellY);
+    // Covers at least as many cells as there are buckets, so it might as well go in all of them
+    // rather than go through every cell
+    if (cells > mask) {
+      int[] all = new int[mask + 1];
+      Arrays.setAll(all, bucket -> bucket);
+      return all;
+    }
+    int[] buckets = new int[(int) cells];
+    int count = 0;
+    for (int cx = minCellX; cx <= maxCellX; cx++) {
+      for (int cy = minCellY; cy <= maxCellY; cy++) {
+        buckets[count++] = bucketOf(cx, cy, mask);
+      }
+    }
+    if (count <= 1) {
+      return buckets;
+    }
+    Arrays.sort(buckets);
+    int distinct = 1;
+    for (int i = 1; i < count; i++) {
+      if (buckets[i] != buckets[distinct - 1]) {
+        buckets[distinct++] = buckets[i];
+      }
+    }
+    return Arrays.copyOf(buckets, distinct);
+  }
+
+  // None when the range is backwards, from a negative width or length
+  private static long cellCount(int minCellX, int maxCellX, int minCellY, int maxCellY) {
+    return Math.max(0L, (long) maxCellX - minCellX + 1)
+        * Math.max(0L, (long) maxCellY - minCellY + 1);
+  }
+
+  private static int bucketOf(int cx, int cy, int mask) {
+    int hash = cx * 0x9E3779B1 ^ cy * 0x85EBCA77;
+    return (hash ^ (hash >>> 15)) & mask;
+  }
+
+  private static int indexOf(DrawRectangle[] rectangles, DrawRectangle rectangle) {
+    if (null != rectangles) {
+      for (int i = 0; i < rectangles.length; i++) {
+        if (rectangles[i] == rectangle) {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static boolean touches(DrawRectangle r, int x, int y, long right, long bottom) {
+    return r.getX() <= right && x <= (long) r.getX() + r.getWidth()
+        && r.getY() <= bottom && y <= (long) r.getY() + r.getLength();
+  }
+
+  private static int cellOf(long coordinate) {
+    return (int) Math.floorDiv(coordinate, (long) CELL_SIZE);
+  }
+}
@@ -0,0 +1,266 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.entities.NameRegistry;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * The rectangles in a scene, by name, readable from any thread through immutable snapshots.
+ * <p>
+ * Rectangles live in fixed size chunks. A change copies only the chunk it touches and the array of
+ * chunks, then publishes a new snapshot with one volatile write, so every snapshot handed out before
+ * keeps seeing exactly the scene it was taken from. Each snapshot has a grid over its rectangles,
+ * changed the same way, so finding what's near an area sees that version too. Taking a snapshot is a single read and never
+ * waits, however busy the writer is, so painting and evaluations always see one consistent version.
+ * <p>
+ * Writes are synchronized with each other, which only matters if there's more than one writer, in
+ * the app it's just the event thread. Deleting moves the last rectangle into the hole so the chunks
+ * stay packed, which means the order of a snapshot is nothing in particular.
+ * <p>
+ * Rectangles without a name are given one when they're added, so every name in the store is unique.
+ * A rectangle added with a name that's already in the store replaces that one.
+ */
+public class SceneStore {
+
+  static final int CHUNK_SIZE = 256;
+
+  // Only touched by writers, readers go through the snapshot
+  private final Map<String, Integer> slotsByName = new HashMap<>();
+  private final NameRegistry names = new NameRegistry();
+  private volatile Snapshot current = indexed(new DrawRectangle[0][], 0, 0);
+
+  public SceneStore() {
+  }
+
+  /**
+   * Start with some rectangles, later ones replacing earlier ones with the same name. Filled in place
+   * before anything can see it, so there's no copying.
+   *
+   * @param rectangles rectangles to start with, the ones without a name are named
+   */
+  public SceneStore(Iterable<DrawRectangle> rectangles) {
+    DrawRectangle[][] chunks = new DrawRectangle[0][];
+    int size = 0;
+    // Named ones go first, so a generated name can't end up replaced by one set by hand
+    List<DrawRectangle> unnamed = new ArrayList<>();
+    for (DrawRectangle rectangle : rectangles) {
+      if (null == rectangle.getName()) {
+        unnamed.add(rectangle);
+        continue;
+      }
+      chunks = grow(chunks, size);
+      size = place(chunks, size, rectangle);
+    }
+    for (DrawRectangle rectangle : unnamed) {
+      rectangle.setName(names.next(slotsByName::containsKey));
+      chunks = grow(chunks, size);
+      size = place(chunks, size, rectangle);
+    }
+    current = indexed(Arrays.copyOf(chunks, (size + CHUNK_SIZE - 1) / CHUNK_SIZE), size, 0);
+  }
+
+  // A snapshot with a grid built from scratch
+  private static Snapshot indexed(DrawRectangle[][] chunks, int size, long version) {
+    SceneGrid grid = SceneGrid.build(new Snapshot(chunks, size, version, null).asList());
+    return new Snapshot(chunks, size, version, grid);
+  }
+
+  // Publish a change, building the grid again if it has outgrown its buckets
+  private void publish(DrawRectangle[][] chunks, int size, long version, SceneGrid grid) {
+    current = grid.isCrowded() ? indexed(chunks, size, version)
+        : new Snapshot(chunks, size, version, grid);
+  }
+
+  // Make sure there's a chunk for one more rectangle, only while building
+  private static DrawRectangle[][] grow(DrawRectangle[][] chunks, int size) {
+    if (size / CHUNK_SIZE == chunks.length) {
+      chunks = Arrays.copyOf(chunks, Math.max(1, chunks.length * 2));
+    }
+    if (null == chunks[size / CHUNK_SIZE]) {
+      chunks[size / CHUNK_SIZE] = new DrawRectangle[CHUNK_SIZE];
+    }
+    return chunks;
+  }
+
+  // Put the rectangle in its slot in place, only while building, and return the new size
+  private int place(DrawRectangle[][] chunks, int size, DrawRectangle rectangle) {
+    Integer slot = slotsByName.get(rectangle.getName());
+    if (null == slot) {
+      slot = size++;
+      slotsByName.put(rectangle.getName(), slot);
+    }
+    chunks[slot / CHUNK_SIZE][slot % CHUNK_SIZE] = rectangle;
+    return size;
+  }
+
+  /**
+   * The scene as it is now. It never changes, later writes only affect later snapshots.
+   */
+  public Snapshot snapshot() {
+    return current;
+  }
+
+  /**
+   * Add a rectangle, replacing the one with the same name if there is one. A rectangle without a name
+   * is given a new one, so it never replaces anything.
+   *
+   * @param rectangle rectangle to add
+   * @return the rectangle it replaced, or null
+   */
+  public synchronized DrawRectangle put(DrawRectangle rectangle) {
+    if (null == rectangle.getName()) {
+      rectangle.setName(names.next(slotsByName::containsKey));
+    }
+    Snapshot snapshot = current;
+    Integer slot = slotsByName.get(rectangle.getName());
+    DrawRectangle[][] chunks;
+    DrawRectangle replaced = null;
+    int size = snapshot.size;
+    SceneGrid grid = snapshot.grid;
+    if (null != slot) {
+      replaced = snapshot.get(slot);
+      grid = grid.remove(replaced);
+      chunks = snapshot.chunks.clone();
+      set(chunks, slot, rectangle);
+    } else {
+      slot = size++;
+      if (slot / CHUNK_SIZE == snapshot.chunks.length) {
+        chunks = Arrays.copyOf(snapshot.chunks, snapshot.chunks.length + 1);
+        chunks[chunks.length - 1] = new DrawRectangle[CHUNK_SIZE];
+        chunks[chunks.length - 1][0] = rectangle;
+      } else {
+        chunks = snapshot.chunks.clone();
+        set(chunks, slot, rectangle);
+      }
+      slotsByName.put(rectangle.getName(), slot);
+    }
+    publish(chunks, size, snapshot.version + 1, grid.insert(rectangle));
+    return replaced;
+  }
+
+  /**
+   * Remove the rectangle with that name.
+   *
+   * @param name name of the rectangle
+   * @return the rectangle removed, or null if there wasn't one
+   */
+  public synchronized DrawRectangle remove(String name) {
+    Integer slot = slotsByName.remove(name);
+    if (null == slot) {
+      return null;
+    }
+    Snapshot snapshot = current;
+    DrawRectangle removed = snapshot.get(slot);
+    int last = snapshot.size - 1;
+    DrawRectangle[][] chunks = snapshot.chunks.clone();
+    if (slot != last) {
+      DrawRectangle moved = snapshot.get(last);
+      set(chunks, slot, moved);
+      slotsByName.put(moved.getName(), slot);
+    }
+    // Drop the reference so removed rectangles aren't kept alive by newer snapshots
+    if (0 == last % CHUNK_SIZE) {
+      chunks = Arrays.copyOf(chunks, chunks.length - 1);
+    } else {
+      set(chunks, last, null);
+    }
+    publish(chunks, last, snapshot.version + 1, snapshot.grid.remove(removed));
+    return removed;
+  }
+
+  // Copy the chunk the slot is in and set the slot in the copy, the old chunk may be in a snapshot
+  private static void set(DrawRectangle[][] chunks, int slot, DrawRectangle rectangle) {
+    int chunk = slot / CHUNK_SIZE;
+    chunks[chunk] = chunks[chunk].clone();
+    chunks[chunk][slot % CHUNK_SIZE] = rectangle;
+  }
+
+  /**
+   * One version of the scene. Safe to share between threads and keep for as long as needed.
+   */
+  public static final class Snapshot {
+    private final DrawRectangle[][] chunks;
+    private final int size;
+    private final long version;
+    private final SceneGrid grid;
+
+    private Snapshot(DrawRectangle[][] chunks, int size, long version, SceneGrid grid) {
+      this.chunks = chunks;
+      this.size = size;
+      this.version = version;
+      this.grid = grid;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Goes up by one with every change to the store.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    public DrawRectangle get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+      }
+      return chunks[index / CHUNK_SIZE][index % CHUNK_SIZE];
+    }
+
+    /**
+     * The snapshot as an unmodifiable list, without copying anything.
+     */
+    public List<DrawRectangle> asList() {
+      return new SnapshotList(this);
+    }
+
+    /**
+     * Find every rectangle in this version of the scene whose closed bounds overlap or touch the
+     * given area, like {@link SpatialGrid#query(int, int, int, int)}.
+     *
+     * @return the candidates, in no particular order
+     */
+    public List<DrawRectangle> query(int x, int y, int width, int length) {
+      return grid.query(x, y, width, length);
+    }
+
+    /**
+     * Find the rectangles that could intersect, contain, or be adjacent to the given one. The
+     * rectangle itself is included if it's in the snapshot.
+     *
+     * @param rectangle rectangle to find candidates for
+     * @return the candidates, in no particular order
+     */
+    public List<DrawRectangle> query(DrawRectangle rectangle) {
+      return query(rectangle.getX(), rectangle.getY(), rectangle.getWidth(),
+          rectangle.getLength());
+    }
+  }
+
+  private static final class SnapshotList extends AbstractList<DrawRectangle>
+      implements RandomAccess {
+    private final Snapshot snapshot;
+
+    SnapshotList(Snapshot snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    @Override
+    public DrawRectangle get(int index) {
+      return snapshot.get(index);
+    }
+
+    @Override
+    public int size() {
+      return snapshot.size;
+    }
+  }
+}
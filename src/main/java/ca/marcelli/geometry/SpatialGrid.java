@@ -0,0 +1,150 @@
+package ca.marcelli.geometry;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform grid over the rectangles in a scene, so a query only has to look at the rectangles that
+ * are near it instead of every rectangle.
+ * <p>
+ * Each rectangle is put in every cell its closed bounds touch. Using closed bounds (the right and
+ * bottom edges count as part of the rectangle) means two rectangles that only share an edge still
+ * end up in a common cell, which is what lets adjacency be found through the grid.
+ * <p>
+ * Rectangles are treated as immutable once they are indexed. If one needs to move, remove it, change
+ * it and insert it again.
+ */
+public class SpatialGrid {
+
+  public static final int DEFAULT_CELL_SIZE = 64;
+
+  private final int cellSize;
+  private final Map<Long, List<DrawRectangle>> cells = new HashMap<>();
+  private int size;
+
+  public SpatialGrid() {
+    this(DEFAULT_CELL_SIZE);
+  }
+
+  public SpatialGrid(int cellSize) {
+    if (cellSize <= 0) {
+      throw new IllegalArgumentException("Cell size must be positive, got " + cellSize);
+    }
+    this.cellSize = cellSize;
+  }
+
+  public void insert(DrawRectangle rectangle) {
+    int minCellX = cellOf(rectangle.getX());
+    int maxCellX = cellOf(rectangle.getX() + rectangle.getWidth());
+    int minCellY = cellOf(rectangle.getY());
+    int maxCellY = cellOf(rectangle.getY() + rectangle.getLength());
+    for (int cx = minCellX; cx <= maxCellX; cx++) {
+      for (int cy = minCellY; cy <= maxCellY; cy++) {
+        cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>()).add(rectangle);
+      }
+    }
+    size++;
+  }
+
+  /**
+   * Removes the rectangle from every cell it was put in. Matches by identity, so an equal rectangle
+   * with a different name is left alone.
+   *
+   * @param rectangle the rectangle that was inserted
+   * @return true if the rectangle was in the grid
+   */
+  public boolean remove(DrawRectangle rectangle) {
+    boolean removed = false;
+    int minCellX = cellOf(rectangle.getX());
+    int maxCellX = cellOf(rectangle.getX() + rectangle.getWidth());
+    int minCellY = cellOf(rectangle.getY());
+    int maxCellY = cellOf(rectangle.getY() + rectangle.getLength());
+    for (int cx = minCellX; cx <= maxCellX; cx++) {
+      for (int cy = minCellY; cy <= maxCellY; cy++) {
+        Long key = key(cx, cy);
+        List<DrawRectangle> cell = cells.get(key);
+        if (null == cell) {
+          continue;
+        }
+        removed |= cell.removeIf(r -> r == rectangle);
+        if (cell.isEmpty()) {
+          cells.remove(key);
+        }
+      }
+    }
+    if (removed) {
+      size--;
+    }
+    return removed;
+  }
+
+  /**
+   * Find every rectangle whose closed bounds overlap or touch the given area. Rectangles sharing only
+   * an edge or a corner with the area are included, so callers can still test them for adjacency.
+   * <p>
+   * A rectangle that spans several cells is only reported from the first cell it shares with the
+   * query, which avoids needing a set to remove duplicates.
+   *
+   * @return the candidates, in no particular order
+   */
+  public List<DrawRectangle> query(int x, int y, int width, int length) {
+    List<DrawRectangle> result = new ArrayList<>();
+    int right = x + width;
+    int bottom = y + length;
+    int minCellX = cellOf(x);
+    int maxCellX = cellOf(right);
+    int minCellY = cellOf(y);
+    int maxCellY = cellOf(bottom);
+    for (int cx = minCellX; cx <= maxCellX; cx++) {
+      for (int cy = minCellY; cy <= maxCellY; cy++) {
+        List<DrawRectangle> cell = cells.get(key(cx, cy));
+        if (null == cell) {
+          continue;
+        }
+        for (DrawRectangle r : cell) {
+          // Only report from the first cell shared by both, so each rectangle shows up once
+          if (cx != Math.max(minCellX, cellOf(r.getX()))
+              || cy != Math.max(minCellY, cellOf(r.getY()))) {
+            continue;
+          }
+          if (r.getX() <= right && x <= r.getX() + r.getWidth()
+              && r.getY() <= bottom && y <= r.getY() + r.getLength()) {
+            result.add(r);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Convenience overload to find the rectangles that could intersect, contain, or be adjacent to the
+   * given one. The rectangle itself is included if it's in the grid.
+   *
+   * @param rectangle rectangle to find candidates for
+   * @return the candidates, in no particular order
+   */
+  public List<DrawRectangle> query(DrawRectangle rectangle) {
+    return query(rectangle.getX(), rectangle.getY(), rectangle.getWidth(), rectangle.getLength());
+  }
+
+  public void clear() {
+    cells.clear();
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  private int cellOf(int coordinate) {
+    return Math.floorDiv(coordinate, cellSize);
+  }
+
+  private static Long key(int cx, int cy) {
+    return ((long) cx << 32) | (cy & 0xffffffffL);
+  }
+}
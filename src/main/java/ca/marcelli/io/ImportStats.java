@@ -0,0 +1,34 @@
+package ca.marcelli.io;
+
+import lombok.Getter;
+
+/**
+ * How much an import read and how long it took.
+ */
+@Getter
+public final class ImportStats {
+  private final int rectangles;
+  private final long bytes;
+  private final long nanos;
+
+  public ImportStats(int rectangles, long bytes, long nanos) {
+    this.rectangles = rectangles;
+    this.bytes = bytes;
+    this.nanos = nanos;
+  }
+
+  public double getRectanglesPerSecond() {
+    return 0 == nanos ? 0 : rectangles * 1e9 / nanos;
+  }
+
+  public double getMegabytesPerSecond() {
+    return 0 == nanos ? 0 : bytes / (1024.0 * 1024.0) * 1e9 / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Read %,d rectangles (%.1f MB) in %,d ms, %,.0f rectangles/s, %.1f MB/s",
+        rectangles, bytes / (1024.0 * 1024.0), nanos / 1_000_000, getRectanglesPerSecond(),
+        getMegabytesPerSecond());
+  }
+}
@@ -0,0 +1,200 @@
+package ca.marcelli.io;
+
+import ca.marcelli.geometry.RectangleStore;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads scene files into a {@link RectangleStore}, fast enough for millions of rectangles.
+ * <p>
+ * A scene file has one rectangle per line as {@code id,x,y,width,length}. Blank lines, and lines
+ * that start with anything other than a number, like a header or a # comment, are skipped. Spaces,
+ * tabs and carriage returns are ignored around numbers but not inside them, and a UTF-8 byte order
+ * mark at the start of the file is skipped. Widths and lengths can't be negative, and a rectangle's
+ * far edges have to fit in an int.
+ * <p>
+ * The file is memory mapped a window at a time, and numbers are parsed straight from the bytes, so
+ * there's no String or object per line. Parsing is one pass of a small state machine that carries
+ * over from one window to the next, so lines can be split across windows. Rectangles are collected
+ * into columns and copied into the store in batches.
+ */
+public final class SceneImporter {
+
+  // Big enough that mapping isn't a noticeable cost, small enough to not need a huge address range
+  private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+  private static final int BATCH_SIZE = 4096;
+  private static final byte[] BYTE_ORDER_MARK = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+  private SceneImporter() {
+  }
+
+  /**
+   * Read every rectangle in the file and add them to the store.
+   *
+   * @param path  scene file
+   * @param store store to add to
+   * @return how many rectangles were read and how long it took
+   * @throws IOException if the file can't be read, or a line isn't a rectangle
+   */
+  public static ImportStats importFile(Path path, RectangleStore store) throws IOException {
+    return importFile(path, store, WINDOW_SIZE);
+  }
+
+  // Window size can be made tiny to test lines split across windows
+  static ImportStats importFile(Path path, RectangleStore store, int windowSize)
+      throws IOException {
+    long start = System.nanoTime();
+    Parser parser = new Parser(store);
+    long fileSize;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      fileSize = channel.size();
+      long first = startsWithByteOrderMark(channel) ? BYTE_ORDER_MARK.length : 0;
+      for (long position = first; position < fileSize; position += windowSize) {
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+            Math.min(windowSize, fileSize - position));
+        parser.parse(window);
+        // Going by how long lines were in the first window, make room for the rest in one go
+        // instead of growing the store over and over
+        if (first == position && fileSize > windowSize && parser.count > 0) {
+          long expected = (long) ((double) parser.count * fileSize / windowSize * 1.05);
+          store.ensureCapacity((int) Math.min(Integer.MAX_VALUE - 8, store.size() + expected));
+        }
+      }
+      parser.finish();
+    }
+    return new ImportStats(parser.count, fileSize, System.nanoTime() - start);
+  }
+
+  // Some editors start UTF-8 files with one, it would otherwise make the first line look like a
+  // header
+  private static boolean startsWithByteOrderMark(FileChannel channel) throws IOException {
+    ByteBuffer start = ByteBuffer.allocate(BYTE_ORDER_MARK.length);
+    channel.read(start, 0);
+    start.flip();
+    return ByteBuffer.wrap(BYTE_ORDER_MARK).equals(start);
+  }
+
+  private static final class Parser {
+    private static final int FIELDS = 5;
+
+    private final RectangleStore store;
+    private final int[][] columns = new int[FIELDS][BATCH_SIZE];
+    private int batched;
+    private int count;
+
+    // Where the parser is in the current line
+    private long line = 1;
+    private int field;
+    private long value;
+    private boolean negative;
+    private boolean digits;
+    // Set by whitespace after a number has started, so another digit means a space inside it
+    private boolean spaced;
+    private boolean skipping;
+
+    Parser(RectangleStore store) {
+      this.store = store;
+    }
+
+    void parse(MappedByteBuffer window) throws IOException {
+      int limit = window.limit();
+      for (int i = 0; i < limit; i++) {
+        byte b = window.get(i);
+        if (b >= '0' && b <= '9') {
+          if (!skipping) {
+            if (spaced) {
+              throw error("space inside a number");
+            }
+            value = value * 10 + (b - '0');
+            digits = true;
+            if (value > Integer.MAX_VALUE + 1L) {
+              throw error("number is too big");
+            }
+          }
+        } else if (b == ',') {
+          if (!skipping) {
+            endField();
+          }
+        } else if (b == '\n') {
+          endLine();
+        } else if (b == '-') {
+          if (!skipping) {
+            if (negative || digits) {
+              throw error("unexpected '-'");
+            }
+            negative = true;
+          }
+        } else if (b == ' ' || b == '\t' || b == '\r') {
+          spaced = digits || negative;
+        } else if (!skipping) {
+          if (0 != field || digits || negative) {
+            throw error("unexpected character '" + (char) b + "'");
+          }
+          skipping = true;
+        }
+      }
+    }
+
+    // The last line doesn't need a line break
+    void finish() throws IOException {
+      endLine();
+      flush();
+    }
+
+    private void endField() throws IOException {
+      if (!digits) {
+        throw error("missing number");
+      }
+      if (field == FIELDS) {
+        throw error("more than " + FIELDS + " numbers");
+      }
+      long signed = negative ? -value : value;
+      if (signed > Integer.MAX_VALUE) {
+        throw error("number is too big");
+      }
+      columns[field++][batched] = (int) signed;
+      value = 0;
+      negative = false;
+      digits = false;
+      spaced = false;
+    }
+
+    private void endLine() throws IOException {
+      if (skipping) {
+        skipping = false;
+      } else if (0 != field || digits || negative) {
+        endField();
+        if (field != FIELDS) {
+          throw error("expected " + FIELDS + " numbers but got " + field);
+        }
+        if (columns[3][batched] < 0 || columns[4][batched] < 0) {
+          throw error("width and length can't be negative");
+        }
+        // The far edges have to fit in an int too, or every check against them overflows
+        if ((long) columns[1][batched] + columns[3][batched] > Integer.MAX_VALUE
+            || (long) columns[2][batched] + columns[4][batched] > Integer.MAX_VALUE) {
+          throw error("rectangle goes past the largest coordinate");
+        }
+        if (++batched == BATCH_SIZE) {
+          flush();
+        }
+        count++;
+      }
+      field = 0;
+      line++;
+    }
+
+    private void flush() {
+      store.addAll(columns[0], columns[1], columns[2], columns[3], columns[4], batched);
+      batched = 0;
+    }
+
+    private IOException error(String message) {
+      return new IOException(String.format("Line %d: %s", line, message));
+    }
+  }
+}
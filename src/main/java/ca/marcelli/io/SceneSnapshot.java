@@ -0,0 +1,357 @@
+package ca.marcelli.io;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.geometry.GridIndex;
+import ca.marcelli.geometry.RectangleStore;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A scene saved to or loaded from a binary snapshot file.
+ * <p>
+ * Everything is little endian, and every section starts on a multiple of 4 bytes:
+ * <pre>
+ *   header    magic "RSNP", version, count, flags, names offset (long), index offset (long)
+ *   columns   ids, xs, ys, widths, lengths, count ints each
+ *   names     optional: blob length, count + 1 offsets into the blob, UTF-8 blob
+ *   index     optional: cell size, origin x, origin y, columns, rows, slot count,
+ *             columns * rows + 1 cell starts, slots
+ * </pre>
+ * The offsets are 0 when a section isn't there. Loading maps the file and copies each column and
+ * the index into an array in one go, so it takes about as long as reading the file. Names stay in
+ * the mapped file and are only decoded when asked for.
+ */
+public final class SceneSnapshot {
+
+  // "RSNP" when read as bytes, and what the file starts with
+  public static final int MAGIC = 0x504E5352;
+  static final int VERSION = 1;
+  static final int HAS_NAMES = 1;
+  static final int HAS_INDEX = 1 << 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int BUFFER_SIZE = 1024 * 1024;
+
+  private final RectangleStore store;
+  private final GridIndex index;
+  // Offsets then the blob, both straight from the file
+  private final ByteBuffer names;
+  private final int namesBlobStart;
+
+  private SceneSnapshot(RectangleStore store, GridIndex index, ByteBuffer names,
+                        int namesBlobStart) {
+    this.store = store;
+    this.index = index;
+    this.names = names;
+    this.namesBlobStart = namesBlobStart;
+  }
+
+  public RectangleStore getStore() {
+    return store;
+  }
+
+  // Null if the snapshot was saved without one
+  public GridIndex getIndex() {
+    return index;
+  }
+
+  public boolean hasNames() {
+    return null != names;
+  }
+
+  /**
+   * Name of the rectangle in a slot, decoded from the file.
+   *
+   * @param slot slot in the store
+   * @return the name, or null if the snapshot has no names
+   */
+  public String getName(int slot) {
+    if (null == names) {
+      return null;
+    }
+    int start = names.getInt(4 + slot * 4);
+    int end = names.getInt(8 + slot * 4);
+    byte[] bytes = new byte[end - start];
+    // A duplicate has its own position, so names can be read from several threads
+    ByteBuffer name = names.duplicate();
+    name.position(namesBlobStart + start);
+    name.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Turn the scene back into DrawRectangles, in slot order. Rectangles saved without a name have
+   * none, they get one when they're added to a scene. An empty name is how a missing one is saved
+   * next to named ones, so those have none either.
+   *
+   * @return the rectangles
+   */
+  public List<DrawRectangle> toRectangles() {
+    List<DrawRectangle> rectangles = new ArrayList<>(store.size());
+    for (int i = 0; i < store.size(); i++) {
+      DrawRectangle rectangle = new DrawRectangle(store.getX(i), store.getY(i), store.getWidth(i),
+          store.getLength(i));
+      String name = getName(i);
+      if (null != name && !name.isEmpty()) {
+        rectangle.setName(name);
+      }
+      rectangles.add(rectangle);
+    }
+    return rectangles;
+  }
+
+  /**
+   * Save DrawRectangles with their names, with ids in iteration order. Rectangles only have names
+   * once they're in a scene, if none of them do the names aren't saved at all.
+   *
+   * @param path       file to write, replaced if it exists
+   * @param rectangles rectangles to save
+   * @param withIndex  whether to build and save a spatial index too
+   * @throws IOException if the file can't be written
+   */
+  public static void write(Path path, Collection<DrawRectangle> rectangles, boolean withIndex)
+      throws IOException {
+    RectangleStore store = RectangleStore.fromRectangles(rectangles);
+    String[] names = rectangles.stream().map(DrawRectangle::getName).toArray(String[]::new);
+    boolean named = Arrays.stream(names).anyMatch(name -> null != name);
+    write(path, store, named ? names : null, withIndex ? GridIndex.build(store) : null);
+  }
+
+  /**
+   * Save a store.
+   *
+   * @param path  file to write, replaced if it exists
+   * @param store rectangles to save
+   * @param names name for each slot, where a null one is saved as empty, or null to save without
+   *              names
+   * @param index index over the store to save with it, or null
+   * @throws IOException if the file can't be written
+   */
+  public static void write(Path path, RectangleStore store, String[] names, GridIndex index)
+      throws IOException {
+    int count = store.size();
+    if (null != names && names.length < count) {
+      throw new IllegalArgumentException(
+          "Got " + names.length + " names for " + count + " rectangles");
+    }
+    // Names are encoded up front, the header needs to know where the index starts
+    byte[][] encoded = null;
+    int[] nameOffsets = null;
+    long namesSize = 0;
+    if (null != names) {
+      encoded = new byte[count][];
+      nameOffsets = new int[count + 1];
+      for (int i = 0; i < count; i++) {
+        encoded[i] = null == names[i] ? new byte[0] : names[i].getBytes(StandardCharsets.UTF_8);
+        nameOffsets[i + 1] = Math.addExact(nameOffsets[i], encoded[i].length);
+      }
+      namesSize = 4 + 4L * (count + 1) + pad(nameOffsets[count]);
+    }
+    long namesOffset = null == names ? 0 : HEADER_SIZE + 5L * 4 * count;
+    long indexOffset = null == index ? 0 : HEADER_SIZE + 5L * 4 * count + namesSize;
+    int flags = (null == names ? 0 : HAS_NAMES) | (null == index ? 0 : HAS_INDEX);
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      buffer.putInt(MAGIC).putInt(VERSION).putInt(count).putInt(flags).putLong(namesOffset)
+          .putLong(indexOffset);
+      flush(channel, buffer);
+      List<IntUnaryOperator> columns = Arrays.asList(store::getId, store::getX, store::getY,
+          store::getWidth, store::getLength);
+      for (IntUnaryOperator column : columns) {
+        for (int i = 0; i < count; i++) {
+          reserve(channel, buffer, 4);
+          buffer.putInt(column.applyAsInt(i));
+        }
+      }
+      // The columns can leave the buffer full, so every section header makes room for itself
+      if (null != names) {
+        reserve(channel, buffer, 4);
+        buffer.putInt(nameOffsets[count]);
+        flush(channel, buffer);
+        writeInts(channel, buffer, nameOffsets, count + 1);
+        for (byte[] name : encoded) {
+          writeBytes(channel, buffer, name);
+        }
+        writeBytes(channel, buffer, new byte[pad(nameOffsets[count]) - nameOffsets[count]]);
+      }
+      if (null != index) {
+        int[] cellStarts = index.getCellStarts();
+        int[] slots = index.getSlots();
+        reserve(channel, buffer, 24);
+        buffer.putInt(index.getCellSize()).putInt(index.getOriginX()).putInt(index.getOriginY())
+            .putInt(index.getColumns()).putInt(index.getRows()).putInt(slots.length);
+        flush(channel, buffer);
+        writeInts(channel, buffer, cellStarts, cellStarts.length);
+        writeInts(channel, buffer, slots, slots.length);
+      }
+      flush(channel, buffer);
+    }
+  }
+
+  /**
+   * Load a snapshot.
+   *
+   * @param path file to read
+   * @return the scene
+   * @throws IOException if the file can't be read, isn't a snapshot this version understands, or
+   *                     is corrupt
+   */
+  public static SceneSnapshot load(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        throw new IOException(path + " is not a scene snapshot");
+      }
+      ByteBuffer header = map(channel, 0, HEADER_SIZE);
+      if (MAGIC != header.getInt(0)) {
+        throw new IOException(path + " is not a scene snapshot");
+      }
+      int version = header.getInt(4);
+      if (VERSION != version) {
+        throw new IOException("Unsupported snapshot version " + version);
+      }
+      int count = header.getInt(8);
+      int flags = header.getInt(12);
+      long namesOffset = header.getLong(16);
+      long indexOffset = header.getLong(24);
+      check(count >= 0, path, "negative count " + count);
+      if (HEADER_SIZE + 5L * 4 * count > fileSize) {
+        throw new IOException(path + " is truncated");
+      }
+
+      int[][] columns = new int[5][];
+      for (int i = 0; i < columns.length; i++) {
+        columns[i] = readInts(channel, HEADER_SIZE + (long) i * 4 * count, count);
+      }
+      RectangleStore store = RectangleStore.wrap(columns[0], columns[1], columns[2], columns[3],
+          columns[4], count);
+
+      ByteBuffer names = null;
+      int namesBlobStart = 0;
+      if (0 != (flags & HAS_NAMES)) {
+        int blobLength = map(channel, namesOffset, 4).getInt(0);
+        check(blobLength >= 0, path, "negative names length " + blobLength);
+        namesBlobStart = 4 + 4 * (count + 1);
+        names = map(channel, namesOffset, namesBlobStart + (long) blobLength);
+        // Checked once here so getName can trust them
+        check(0 == names.getInt(4), path, "names don't start at 0");
+        for (int i = 0; i < count; i++) {
+          check(names.getInt(4 + i * 4) <= names.getInt(8 + i * 4), path,
+              "name offsets go backwards at " + i);
+        }
+        check(blobLength == names.getInt(4 + count * 4), path, "names don't end with the blob");
+      }
+
+      GridIndex index = null;
+      if (0 != (flags & HAS_INDEX)) {
+        ByteBuffer indexHeader = map(channel, indexOffset, 24);
+        int columnCount = indexHeader.getInt(12);
+        int rowCount = indexHeader.getInt(16);
+        int slotCount = indexHeader.getInt(20);
+        int cellSize = indexHeader.getInt(0);
+        check(cellSize > 0, path, "index cell size " + cellSize);
+        check(columnCount > 0 && rowCount > 0, path,
+            "index grid " + columnCount + " by " + rowCount);
+        check(slotCount >= 0, path, "negative index slot count " + slotCount);
+        long cells = (long) columnCount * rowCount + 1;
+        check(cells <= Integer.MAX_VALUE, path, "index grid too large");
+        int[] cellStarts = readInts(channel, indexOffset + 24, (int) cells);
+        int[] slots = readInts(channel, indexOffset + 24 + 4 * cells, slotCount);
+        check(0 == cellStarts[0], path, "index cells don't start at 0");
+        for (int i = 1; i < cellStarts.length; i++) {
+          check(cellStarts[i - 1] <= cellStarts[i], path, "index cells go backwards at " + i);
+        }
+        check(slotCount == cellStarts[cellStarts.length - 1], path,
+            "index cells don't end with the slots");
+        for (int slot : slots) {
+          check(slot >= 0 && slot < count, path, "index slot " + slot + " out of range");
+        }
+        index = new GridIndex(store, cellSize, indexHeader.getInt(4), indexHeader.getInt(8),
+            columnCount, rowCount, cellStarts, slots);
+      }
+      return new SceneSnapshot(store, index, names, namesBlobStart);
+    }
+  }
+
+  private static void check(boolean valid, Path path, String problem) throws IOException {
+    if (!valid) {
+      throw new IOException(path + " is corrupt: " + problem);
+    }
+  }
+
+  private static int pad(int size) {
+    return (size + 3) & ~3;
+  }
+
+  private static MappedByteBuffer map(FileChannel channel, long position, long size)
+      throws IOException {
+    if (position < 0 || size < 0 || position + size > channel.size()) {
+      throw new IOException("Snapshot is truncated");
+    }
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    return buffer;
+  }
+
+  private static int[] readInts(FileChannel channel, long position, int count)
+      throws IOException {
+    int[] values = new int[count];
+    map(channel, position, 4L * count).asIntBuffer().get(values);
+    return values;
+  }
+
+  private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] values, int count)
+      throws IOException {
+    for (int written = 0; written < count; ) {
+      int chunk = Math.min(count - written, buffer.remaining() / 4);
+      if (0 == chunk) {
+        flush(channel, buffer);
+        continue;
+      }
+      // The view shares the buffer's contents and order, but not its position
+      buffer.asIntBuffer().put(values, written, chunk);
+      buffer.position(buffer.position() + chunk * 4);
+      written += chunk;
+    }
+  }
+
+  private static void writeBytes(FileChannel channel, ByteBuffer buffer, byte[] bytes)
+      throws IOException {
+    for (int written = 0; written < bytes.length; ) {
+      if (!buffer.hasRemaining()) {
+        flush(channel, buffer);
+      }
+      int chunk = Math.min(bytes.length - written, buffer.remaining());
+      buffer.put(bytes, written, chunk);
+      written += chunk;
+    }
+  }
+
+  // Flushes first if there isn't room for that many bytes
+  private static void reserve(FileChannel channel, ByteBuffer buffer, int bytes)
+      throws IOException {
+    if (buffer.remaining() < bytes) {
+      flush(channel, buffer);
+    }
+  }
+
+  private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+}
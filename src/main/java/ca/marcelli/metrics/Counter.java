@@ -0,0 +1,35 @@
+package ca.marcelli.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that many threads can bump at once without fighting over it. Does nothing while metrics
+ * are disabled.
+ */
+public final class Counter {
+
+  private final LongAdder count = new LongAdder();
+
+  Counter() {
+  }
+
+  public void increment() {
+    if (Metrics.isEnabled()) {
+      count.increment();
+    }
+  }
+
+  public void add(long amount) {
+    if (Metrics.isEnabled()) {
+      count.add(amount);
+    }
+  }
+
+  public long get() {
+    return count.sum();
+  }
+
+  void reset() {
+    count.reset();
+  }
+}
@@ -0,0 +1,125 @@
+package ca.marcelli.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how long something took, in buckets, so percentiles can be read without keeping every
+ * sample.
+ * <p>
+ * Below 4 ns each value gets its own bucket, above that every power of two is split into 4 buckets.
+ * So a percentile is never off by more than a quarter of its value, whatever the range, and the
+ * whole thing is a fixed set of striped counters. Recording is one bucket lookup and a few adds, no
+ * allocation and no locking.
+ */
+public final class LatencyHistogram {
+
+  // 4 exact buckets, then 4 per power of two from 2^2 up to 2^62
+  private static final int BUCKET_COUNT = 4 + 61 * 4;
+
+  private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+  private final LongAdder count = new LongAdder();
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  LatencyHistogram() {
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      buckets[i] = new LongAdder();
+    }
+  }
+
+  /**
+   * Record a duration. Negative ones, which only happen if the clock misbehaves, count as 0.
+   *
+   * @param nanos how long it took
+   */
+  public void record(long nanos) {
+    if (!Metrics.isEnabled()) {
+      return;
+    }
+    nanos = Math.max(0, nanos);
+    buckets[bucketOf(nanos)].increment();
+    count.increment();
+    total.add(nanos);
+    max.accumulate(nanos);
+  }
+
+  /**
+   * Record the time since a {@link Metrics#startTimer()}. Timers started while metrics were disabled
+   * are ignored.
+   *
+   * @param start what startTimer returned
+   */
+  public void recordSince(long start) {
+    if (Metrics.NOT_TIMED != start) {
+      record(System.nanoTime() - start);
+    }
+  }
+
+  public long getCount() {
+    return count.sum();
+  }
+
+  public long getTotalNanos() {
+    return total.sum();
+  }
+
+  public long getMaxNanos() {
+    return max.get();
+  }
+
+  /**
+   * Estimate a percentile, as the top of the bucket it falls in, but never above the max.
+   *
+   * @param fraction which percentile, between 0 and 1, like 0.99
+   * @return the estimate in nanoseconds, or 0 if nothing was recorded
+   */
+  public long getPercentileNanos(double fraction) {
+    long[] counts = new long[BUCKET_COUNT];
+    long recorded = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      counts[i] = buckets[i].sum();
+      recorded += counts[i];
+    }
+    if (0 == recorded) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(fraction * recorded));
+    long seen = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(upperBoundOf(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  void reset() {
+    for (LongAdder bucket : buckets) {
+      bucket.reset();
+    }
+    count.reset();
+    total.reset();
+    max.reset();
+  }
+
+  static int bucketOf(long nanos) {
+    if (nanos < 4) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int sub = (int) (nanos >>> (exponent - 2)) & 3;
+    return 4 + (exponent - 2) * 4 + sub;
+  }
+
+  static long upperBoundOf(int bucket) {
+    if (bucket < 4) {
+      return bucket;
+    }
+    int exponent = (bucket - 4) / 4 + 2;
+    int sub = (bucket - 4) % 4;
+    long width = 1L << (exponent - 2);
+    return (4 + sub) * width + width - 1;
+  }
+}
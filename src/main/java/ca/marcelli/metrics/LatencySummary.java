@@ -0,0 +1,48 @@
+package ca.marcelli.metrics;
+
+/**
+ * Percentiles of a {@link LatencyHistogram} at some point in time, in nanoseconds. Shown as a
+ * composite value over JMX.
+ */
+public final class LatencySummary {
+
+  private final long count;
+  private final long meanNanos;
+  private final long p50Nanos;
+  private final long p90Nanos;
+  private final long p99Nanos;
+  private final long maxNanos;
+
+  LatencySummary(LatencyHistogram histogram) {
+    this.count = histogram.getCount();
+    this.meanNanos = 0 == count ? 0 : histogram.getTotalNanos() / count;
+    this.p50Nanos = histogram.getPercentileNanos(0.5);
+    this.p90Nanos = histogram.getPercentileNanos(0.9);
+    this.p99Nanos = histogram.getPercentileNanos(0.99);
+    this.maxNanos = histogram.getMaxNanos();
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public long getMeanNanos() {
+    return meanNanos;
+  }
+
+  public long getP50Nanos() {
+    return p50Nanos;
+  }
+
+  public long getP90Nanos() {
+    return p90Nanos;
+  }
+
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+}
@@ -0,0 +1,100 @@
+package ca.marcelli.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters and latency histograms for the hot paths, readable over JMX as
+ * {@value #OBJECT_NAME}.
+ * <p>
+ * Instrumented classes look up their counters and histograms once, into static fields, and recording
+ * never allocates. Metrics are on unless the {@code rectangles.metrics} system property is false,
+ * and can be switched at runtime. While they're off, recording is a single volatile read and
+ * nothing is timed.
+ * <p>
+ * Nothing in here touches AWT, so batch mode can use it too.
+ */
+public final class Metrics {
+
+  public static final String OBJECT_NAME = "ca.marcelli:type=Metrics";
+  // What startTimer returns while disabled. nanoTime could return it too, that sample is just lost.
+  static final long NOT_TIMED = Long.MIN_VALUE;
+
+  private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+  private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+  private static volatile boolean enabled =
+      Boolean.parseBoolean(System.getProperty("rectangles.metrics", "true"));
+
+  private Metrics() {
+  }
+
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  public static void setEnabled(boolean enabled) {
+    Metrics.enabled = enabled;
+  }
+
+  /**
+   * Get the counter with that name, creating it the first time.
+   */
+  public static Counter counter(String name) {
+    return COUNTERS.computeIfAbsent(name, n -> new Counter());
+  }
+
+  /**
+   * Get the histogram with that name, creating it the first time.
+   */
+  public static LatencyHistogram histogram(String name) {
+    return HISTOGRAMS.computeIfAbsent(name, n -> new LatencyHistogram());
+  }
+
+  /**
+   * Start timing something, to hand to {@link LatencyHistogram#recordSince} when it's done.
+   *
+   * @return the start time, or a marker that makes recordSince do nothing if metrics are disabled
+   */
+  public static long startTimer() {
+    return enabled ? System.nanoTime() : NOT_TIMED;
+  }
+
+  // Sorted copies for reading
+  static Map<String, Counter> counters() {
+    return Collections.unmodifiableMap(new TreeMap<>(COUNTERS));
+  }
+
+  static Map<String, LatencyHistogram> histograms() {
+    return Collections.unmodifiableMap(new TreeMap<>(HISTOGRAMS));
+  }
+
+  /**
+   * Zero every counter and histogram.
+   */
+  public static void reset() {
+    COUNTERS.values().forEach(Counter::reset);
+    HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+  }
+
+  /**
+   * Register the metrics with the platform MBean server, so jconsole and friends can see them. Does
+   * nothing if they're already registered.
+   */
+  public static void registerMBean() {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      server.registerMBean(new MetricsBean(), new ObjectName(OBJECT_NAME));
+    } catch (InstanceAlreadyExistsException e) {
+      // Someone got there first, it's the same data either way
+    } catch (JMException e) {
+      throw new IllegalStateException("Couldn't register metrics", e);
+    }
+  }
+}
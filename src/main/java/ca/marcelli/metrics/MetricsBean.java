@@ -0,0 +1,37 @@
+package ca.marcelli.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class MetricsBean implements MetricsMXBean {
+
+  @Override
+  public boolean isEnabled() {
+    return Metrics.isEnabled();
+  }
+
+  @Override
+  public void setEnabled(boolean enabled) {
+    Metrics.setEnabled(enabled);
+  }
+
+  @Override
+  public Map<String, Long> getCounters() {
+    Map<String, Long> counters = new LinkedHashMap<>();
+    Metrics.counters().forEach((name, counter) -> counters.put(name, counter.get()));
+    return counters;
+  }
+
+  @Override
+  public Map<String, LatencySummary> getLatencies() {
+    Map<String, LatencySummary> latencies = new LinkedHashMap<>();
+    Metrics.histograms().forEach((name, histogram) ->
+        latencies.put(name, new LatencySummary(histogram)));
+    return latencies;
+  }
+
+  @Override
+  public void reset() {
+    Metrics.reset();
+  }
+}
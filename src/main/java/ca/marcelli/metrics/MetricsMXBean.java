@@ -0,0 +1,29 @@
+package ca.marcelli.metrics;
+
+import java.util.Map;
+
+/**
+ * What {@link Metrics} shows over JMX. Reading attributes takes a snapshot, nothing is locked while
+ * it happens, so values recorded in the meantime may or may not be included.
+ */
+public interface MetricsMXBean {
+
+  boolean isEnabled();
+
+  void setEnabled(boolean enabled);
+
+  /**
+   * @return every counter by name
+   */
+  Map<String, Long> getCounters();
+
+  /**
+   * @return a summary of every histogram by name
+   */
+  Map<String, LatencySummary> getLatencies();
+
+  /**
+   * Zero everything.
+   */
+  void reset();
+}
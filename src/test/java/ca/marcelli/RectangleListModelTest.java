@@ -0,0 +1,43 @@
+package ca.marcelli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RectangleListModelTest {
+
+  private static DrawRectangle named(String name) {
+    DrawRectangle rectangle = new DrawRectangle(0, 0, 10, 10);
+    rectangle.setName(name);
+    return rectangle;
+  }
+
+  @Test
+  void testIncrementalUpdates() {
+    RectangleListModel model = new RectangleListModel(List.of(named("Carol"), named("Alice")));
+    List<String> events = new ArrayList<>();
+    model.addTableModelListener(e -> events.add(e.getType() + ":" + e.getFirstRow()));
+
+    // New names go in their sorted place, and only that row is reported
+    model.add(named("Bob"));
+    model.add(named("Dave"));
+    assertEquals(4, model.getRowCount());
+    assertEquals("Bob", model.getValueAt(1, RectangleListModel.NAME_COLUMN));
+    assertEquals(List.of("1:1", "1:3"), events);
+
+    // A repeated name replaces the row it had
+    DrawRectangle replacement = named("Bob");
+    model.add(replacement);
+    assertEquals(4, model.getRowCount());
+    assertEquals(replacement, model.getRectangleAt(1));
+
+    model.remove("Alice");
+    model.remove("Nobody");
+    assertEquals(3, model.getRowCount());
+    assertEquals(0, model.indexOf("Bob"));
+    assertEquals(List.of("1:1", "1:3", "0:1", "-1:0"), events);
+  }
+}
@@ -0,0 +1,90 @@
+package ca.marcelli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.geometry.EvaluationResult;
+import ca.marcelli.geometry.RelationshipEvaluator;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RectanglePanelTest {
+
+  // Counts repaints instead of asking the repaint manager, which ignores panels that aren't showing
+  private static class CountingPanel extends RectanglePanel {
+    private int repaints;
+    private Rectangle lastRepaint;
+
+    CountingPanel(List<DrawRectangle> rectangles) {
+      super(rectangles);
+    }
+
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+      repaints++;
+      lastRepaint = new Rectangle(x, y, width, height);
+    }
+  }
+
+  @Test
+  void testRepaintsWhenResultsArrive() {
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle other = new DrawRectangle(10, 10, 30, 40);
+    CountingPanel panel = new CountingPanel(List.of());
+    EvaluationResult result = new RelationshipEvaluator().evaluate(r, List.of(r, other));
+    int before = panel.repaints;
+
+    panel.addEvaluationResult(result);
+    assertEquals(before + 1, panel.repaints);
+    assertEquals(1, panel.getIntersections().size());
+    assertEquals(2, panel.getIntersectPointsAndSegments().size());
+  }
+
+  @Test
+  void testRepaintsCommittedRectangle() {
+    CountingPanel panel = new CountingPanel(List.of());
+    panel.setNewPointA(mouseAt(panel, 10, 20));
+    panel.setNewPointB(mouseAt(panel, 60, 50));
+    int before = panel.repaints;
+
+    // Committing names the rectangle, so it has to be painted again with its label
+    DrawRectangle committed = panel.addIndicatorRectToHashmap();
+    assertNotNull(committed.getName());
+    assertEquals(before + 1, panel.repaints);
+    assertTrue(panel.lastRepaint.contains(committed.getBounds()));
+  }
+
+  @Test
+  void testPaintsLabelsFromOffPanel() {
+    // Well off the left edge, but the name is wide enough to reach into the panel
+    DrawRectangle far = new DrawRectangle(-200, 40, 10, 10);
+    far.setName("A rectangle with a name that goes on long enough to be seen from far away");
+    RectanglePanel panel = new RectanglePanel(List.of(far));
+    panel.setSize(100, 100);
+    int reach = -195 + panel.getFontMetrics(panel.getFont()).stringWidth(far.getName()) / 2;
+    assertTrue(reach > 10);
+
+    BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = image.createGraphics();
+    panel.paint(g2d);
+    g2d.dispose();
+    int background = panel.getBackground().getRGB();
+    boolean painted = false;
+    for (int x = 0; x < reach && !painted; x++) {
+      for (int y = 20; y < 70 && !painted; y++) {
+        painted = image.getRGB(x, y) != background;
+      }
+    }
+    assertTrue(painted);
+  }
+
+  private static MouseEvent mouseAt(RectanglePanel panel, int x, int y) {
+    return new MouseEvent(panel, MouseEvent.MOUSE_PRESSED, 0, 0, x, y, 1, false);
+  }
+}
@@ -0,0 +1,31 @@
+package ca.marcelli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+class RenderLayerTest {
+
+  @Test
+  void testRendersAtDeviceScale() {
+    // Less than a panel pixel, so it's only sharp if the layer has a pixel per device pixel
+    RenderLayer layer = new RenderLayer(g2d -> {
+      g2d.setColor(Color.BLUE);
+      g2d.fill(new Rectangle2D.Double(10, 10, 0.6, 0.6));
+    });
+    BufferedImage screen = new BufferedImage(80, 80, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = screen.createGraphics();
+    // What a HiDPI screen at 200% hands the panel
+    g2d.scale(2, 2);
+    layer.paint(g2d, 40, 40, new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+    g2d.dispose();
+
+    assertEquals(Color.BLUE.getRGB(), screen.getRGB(20, 20));
+    assertEquals(0, screen.getRGB(21, 21));
+  }
+}
@@ -0,0 +1,78 @@
+package ca.marcelli.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.geometry.GridIndex;
+import ca.marcelli.geometry.RectangleStore;
+import ca.marcelli.geometry.RelationshipSweep;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BatchEvaluatorTest {
+
+  @Test
+  void testAllPairsMatchesSweep() throws InterruptedException {
+    Random random = new Random(11);
+    List<DrawRectangle> scene = new ArrayList<>();
+    Map<DrawRectangle, Integer> ids = new IdentityHashMap<>();
+    for (int i = 0; i < 300; i++) {
+      DrawRectangle rectangle = new DrawRectangle(random.nextInt(30) * 10, random.nextInt(30) * 10,
+          (random.nextInt(5) + 1) * 10, (random.nextInt(5) + 1) * 10);
+      scene.add(rectangle);
+      ids.put(rectangle, i);
+    }
+    // Touches everything, more candidates than a worker starts out with room for
+    DrawRectangle big = new DrawRectangle(0, 0, 400, 400);
+    scene.add(big);
+    ids.put(big, 300);
+    List<String> expected = new ArrayList<>();
+    RelationshipSweep.findAll(scene).forEach(rel -> expected.add(ids.get(rel.getFirst()) + "|"
+        + ids.get(rel.getSecond()) + "|" + rel.getKind() + "|" + rel.getAdjacency()));
+
+    // Several threads and small cells, so blocks come in from all over
+    RectangleStore store = RectangleStore.fromRectangles(scene);
+    BatchEvaluator evaluator = new BatchEvaluator(store, GridIndex.build(store, 16), 3);
+    List<String> actual = Collections.synchronizedList(new ArrayList<>());
+    long found = evaluator.evaluateAllPairs(block -> {
+      for (int i = 0; i < block.size(); i++) {
+        actual.add(block.getFirst(i) + "|" + block.getSecond(i) + "|" + block.getKind(i) + "|"
+            + block.getAdjacency(i));
+      }
+    });
+
+    expected.sort(String::compareTo);
+    actual.sort(String::compareTo);
+    assertEquals(expected, actual);
+    assertEquals(expected.size(), found);
+  }
+
+  @Test
+  void testTargets() throws InterruptedException {
+    RectangleStore store = new RectangleStore();
+    store.add(100, 0, 0, 20, 30);
+    store.add(101, 10, 10, 30, 40);
+    store.add(102, 5, 5, 5, 5);
+    store.add(103, 0, 30, 10, 10);
+    List<String> actual = new ArrayList<>();
+    long found = new BatchEvaluator(store, GridIndex.build(store), 1)
+        .evaluateTargets(new int[] {0}, block -> {
+          for (int i = 0; i < block.size(); i++) {
+            actual.add(block.getFirst(i) + "|" + block.getSecond(i) + "|" + block.getKind(i) + "|"
+                + block.getAdjacency(i));
+          }
+        });
+
+    // Reported by id, not slot
+    actual.sort(String::compareTo);
+    assertEquals(Arrays.asList("100|101|INTERSECTS|null", "100|102|CONTAINS|null",
+        "100|103|ADJACENT|SUB_LINE"), actual);
+    assertEquals(3, found);
+  }
+}
@@ -0,0 +1,15 @@
+package ca.marcelli.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class BatchMainTest {
+
+  @Test
+  void testBadThreadCount() {
+    // Rejected with the usage like other bad arguments, before the scene is even looked at
+    assertEquals(2, BatchMain.run(new String[] {"--threads", "0", "scene.csv"}));
+    assertEquals(2, BatchMain.run(new String[] {"--threads", "-3", "scene.csv"}));
+  }
+}
@@ -0,0 +1,72 @@
+package ca.marcelli.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.geometry.AdjacencyType;
+import ca.marcelli.geometry.RelationshipKind;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class RecordFormatTest {
+
+  // What rectangle 100 at 0,0 20x30 has with 101, 102 and 103 next to it
+  private static RelationshipBlock block() {
+    RelationshipBlock block = new RelationshipBlock(3);
+    block.add(100, 101, RelationshipKind.INTERSECTS, null, new int[] {10, 10, 10, 20});
+    block.add(100, 102, RelationshipKind.CONTAINS, null, new int[] {5, 5, 5, 5});
+    block.add(100, 103, RelationshipKind.ADJACENT, AdjacencyType.SUB_LINE,
+        new int[] {0, 30, 10, 30});
+    return block;
+  }
+
+  private static byte[] encode(RecordFormat format, RelationshipBlock block) {
+    ByteBuffer out = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+    out.put(format.header());
+    for (int i = 0; i < block.size(); i++) {
+      format.encode(block, i, out);
+    }
+    return Arrays.copyOf(out.array(), out.position());
+  }
+
+  @Test
+  void testCsv() {
+    String csv = new String(encode(RecordFormat.CSV, block()), StandardCharsets.US_ASCII);
+    assertEquals("first,second,kind,adjacency,c0,c1,c2,c3\n"
+        + "100,101,INTERSECTS,,10,10,10,20\n"
+        + "100,102,CONTAINS,,5,5,5,5\n"
+        + "100,103,ADJACENT,SUB_LINE,0,30,10,30\n", csv);
+  }
+
+  @Test
+  void testJsonLines() {
+    String json = new String(encode(RecordFormat.JSON_LINES, block()), StandardCharsets.US_ASCII);
+    assertTrue(json.contains("{\"first\":100,\"second\":103,\"kind\":\"ADJACENT\","
+        + "\"adjacency\":\"SUB_LINE\",\"coordinates\":[0,30,10,30]}\n"));
+    assertTrue(json.contains("\"kind\":\"CONTAINS\",\"adjacency\":null,"));
+    assertEquals(3, json.split("\n").length);
+  }
+
+  @Test
+  void testBinary() {
+    ByteBuffer binary = ByteBuffer.wrap(encode(RecordFormat.BINARY, block()))
+        .order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(8 + 3 * 28, binary.limit());
+    assertEquals(RecordFormat.BINARY_MAGIC, binary.getInt(0));
+    // The adjacent one is last, with its adjacency ordinal shifted up by one
+    assertEquals(103, binary.getInt(8 + 2 * 28 + 4));
+    assertEquals(AdjacencyType.SUB_LINE.ordinal() + 1, binary.get(8 + 2 * 28 + 9));
+  }
+
+  @Test
+  void testExtremeNumbers() {
+    RelationshipBlock block = new RelationshipBlock(1);
+    block.add(Integer.MIN_VALUE, Integer.MAX_VALUE, RelationshipKind.INTERSECTS, null,
+        new int[] {-7, 0, Integer.MIN_VALUE, 9});
+    String csv = new String(encode(RecordFormat.CSV, block), StandardCharsets.US_ASCII);
+    assertTrue(csv.endsWith("-2147483648,2147483647,INTERSECTS,,-7,0,-2147483648,9\n"));
+  }
+}
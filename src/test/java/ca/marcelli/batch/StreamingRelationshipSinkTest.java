@@ -0,0 +1,162 @@
+package ca.marcelli.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.geometry.RelationshipKind;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class StreamingRelationshipSinkTest {
+
+  private static RelationshipBlock oneRelationship(int first) {
+    RelationshipBlock block = new RelationshipBlock(1);
+    block.add(first, first + 1, RelationshipKind.INTERSECTS, null, new int[] {0, 0, 1, 1});
+    return block;
+  }
+
+  @Test
+  void testWritesHeaderAndRecords() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    StreamingRelationshipSink sink =
+        new StreamingRelationshipSink(Channels.newChannel(out), RecordFormat.CSV, 1);
+    sink.accept(oneRelationship(1));
+    sink.accept(oneRelationship(5));
+    sink.close();
+
+    assertEquals(2, sink.getRecordsWritten());
+    assertEquals("first,second,kind,adjacency,c0,c1,c2,c3\n"
+            + "1,2,INTERSECTS,,0,0,1,1\n5,6,INTERSECTS,,0,0,1,1\n",
+        new String(out.toByteArray(), StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  void testWriteFailure() throws IOException {
+    StreamingRelationshipSink sink = new StreamingRelationshipSink(new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) throws IOException {
+        throw new IOException("Disk full");
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    }, RecordFormat.CSV, 1);
+    sink.accept(oneRelationship(1));
+    IOException e = assertThrows(IOException.class, sink::close);
+    assertEquals("Disk full", e.getMessage());
+  }
+
+  @Test
+  void testUncheckedWriteFailure() throws IOException {
+    StreamingRelationshipSink sink = new StreamingRelationshipSink(new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) {
+        throw new IllegalStateException("Channel broke");
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    }, RecordFormat.CSV, 1);
+
+    // More than the buffer holds, so the write fails partway through, and the queue only takes the
+    // blocks after it if the writer is still there draining them
+    RelationshipBlock big = new RelationshipBlock(50_000);
+    for (int i = 0; i < 50_000; i++) {
+      big.add(i, i + 1, RelationshipKind.INTERSECTS, null, new int[] {0, 0, 1, 1});
+    }
+    sink.accept(big);
+    IOException e = assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      assertThrows(UncheckedIOException.class, () -> {
+        for (int i = 0; i < 100; i++) {
+          sink.accept(oneRelationship(i));
+        }
+      });
+      return assertThrows(IOException.class, sink::close);
+    });
+    assertTrue(e.getCause() instanceof IllegalStateException);
+  }
+
+  @Test
+  void testBackpressure() throws Exception {
+    // A channel that holds the writer until it's released
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    WritableByteChannel channel = new WritableByteChannel() {
+      @Override
+      public int write(ByteBuffer src) throws IOException {
+        writing.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        int written = src.remaining();
+        src.position(src.limit());
+        return written;
+      }
+
+      @Override
+      public boolean isOpen() {
+        return true;
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    StreamingRelationshipSink sink = new StreamingRelationshipSink(channel, RecordFormat.CSV, 1);
+
+    // More than the write buffer holds, so the writer gets stuck writing it
+    RelationshipBlock big = new RelationshipBlock(50_000);
+    for (int i = 0; i < 50_000; i++) {
+      big.add(i, i + 1, RelationshipKind.INTERSECTS, null, new int[] {0, 0, 1, 1});
+    }
+    sink.accept(big);
+    assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+    // The second block fits in the queue, the third has to wait for the writer to take it
+    AtomicInteger accepted = new AtomicInteger();
+    Thread producer = new Thread(() -> {
+      for (int i = 0; i < 2; i++) {
+        sink.accept(oneRelationship(1));
+        accepted.incrementAndGet();
+      }
+    });
+    producer.start();
+    producer.join(500);
+    assertTrue(producer.isAlive());
+    assertEquals(1, accepted.get());
+
+    release.countDown();
+    producer.join(10_000);
+    assertFalse(producer.isAlive());
+    assertEquals(2, accepted.get());
+    sink.close();
+    assertEquals(50_002, sink.getRecordsWritten());
+  }
+}
@@ -1,5 +1,6 @@
 package ca.marcelli.entities;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -7,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import ca.marcelli.RectanglePanel;
+import ca.marcelli.geometry.AdjacencyType;
 import java.awt.Point;
 import java.util.List;
 import java.util.Set;
@@ -26,6 +28,15 @@ class DrawRectangleTest {
     DrawRectangle r2 = new DrawRectangle(400, 400, 10, 10);
     assertNull(r2.isIntersectingWith(r1));
     assertNull(r1.isIntersectingWith(r2));
+
+    // The lightweight versions agree with the full one
+    int[] bounds = new int[4];
+    assertTrue(r.intersects(r1));
+    assertTrue(r.getIntersectionBounds(r1, bounds));
+    assertEquals(r.isIntersectingWith(r1), new DrawRectangle(bounds[0], bounds[1], bounds[2],
+        bounds[3]));
+    assertFalse(r1.intersects(r2));
+    assertFalse(r1.getIntersectionBounds(r2, bounds));
   }
 
   @Test
@@ -55,6 +66,17 @@ class DrawRectangleTest {
     expected = new DrawSegment(List.of(new Point(20, 10), new Point(20, 30)), "");
     assertEquals(expected, segment);
     assertTrue(segment.getMessage().contains("Partial"));
+
+    // Only touching at a corner, or sharing a line without touching, isn't adjacency
+    assertTrue(r.isAdjacentTo(new DrawRectangle(20, 30, 10, 10)).isEmpty());
+    assertTrue(r.isAdjacentTo(new DrawRectangle(20, 40, 10, 10)).isEmpty());
+    assertTrue(r.isAdjacentTo(new DrawRectangle(400, 400, 10, 10)).isEmpty());
+
+    // The primitive version gives the same segment and type
+    int[] shared = new int[4];
+    assertEquals(AdjacencyType.PARTIAL, r.getAdjacency(r4, shared));
+    assertArrayEquals(new int[] {20, 10, 20, 30}, shared);
+    assertNull(r.getAdjacency(new DrawRectangle(10, 10, 30, 40), shared));
   }
 
   @Test
@@ -83,7 +105,7 @@ class DrawRectangleTest {
   @Test
   void testExtractIntersects() {
     // Testing this using RectanglePanel.getAllIntersectionsFor because the test would
-    // look exactly the same as that. This also effectively tests getPointHashes.
+    // look exactly the same as that. This also effectively tests RectangleMath.crossings.
     RectanglePanel rectanglePanel = new RectanglePanel();
     DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
     DrawRectangle r1 = new DrawRectangle(10, 10, 30, 40);
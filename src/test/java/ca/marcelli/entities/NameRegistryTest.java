@@ -0,0 +1,27 @@
+package ca.marcelli.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class NameRegistryTest {
+
+  @Test
+  void testNamesAreUnique() {
+    NameRegistry registry = new NameRegistry();
+    Set<String> taken = new HashSet<>();
+    taken.add("Ben");
+    taken.add("Ada 2");
+    assertEquals("Ada", registry.next(taken::contains));
+    // Taken names are skipped
+    assertEquals("Cleo", registry.next(taken::contains));
+
+    Set<String> seen = new HashSet<>(taken);
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(seen.add(registry.next(seen::contains)));
+    }
+  }
+}
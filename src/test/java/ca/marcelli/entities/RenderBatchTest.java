@@ -0,0 +1,30 @@
+package ca.marcelli.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.Test;
+
+class RenderBatchTest {
+
+  @Test
+  void testKeepsPaintOrder() {
+    BufferedImage image = new BufferedImage(40, 40, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = image.createGraphics();
+    RenderBatch batch = new RenderBatch(g2d.getFontMetrics());
+
+    // Pink, then blue over it, then pink again over the blue, like overlapping intersections
+    batch.fillRect(Color.PINK, 0, 0, 20, 20);
+    batch.fillRect(Color.BLUE, 10, 10, 20, 20);
+    batch.fillRect(Color.PINK, 15, 15, 20, 20);
+    batch.flush(g2d);
+    g2d.dispose();
+
+    assertEquals(Color.PINK.getRGB(), image.getRGB(5, 5));
+    assertEquals(Color.BLUE.getRGB(), image.getRGB(12, 12));
+    // Painted last, so it's on top even though pink was used first
+    assertEquals(Color.PINK.getRGB(), image.getRGB(17, 17));
+  }
+}
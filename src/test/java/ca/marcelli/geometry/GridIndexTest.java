@@ -0,0 +1,61 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class GridIndexTest {
+
+  @Test
+  void testMatchesBruteForce() {
+    Random random = new Random(3);
+    RectangleStore store = new RectangleStore();
+    for (int i = 0; i < 500; i++) {
+      store.add(i, random.nextInt(2000) - 1000, random.nextInt(2000) - 1000,
+          random.nextInt(150), random.nextInt(150));
+    }
+    // Small cells so most rectangles span several of them
+    GridIndex index = GridIndex.build(store, 16);
+    int[] out = new int[store.size()];
+    for (int slot = 0; slot < store.size(); slot++) {
+      int count = index.findTouching(slot, out);
+      int[] actual = Arrays.copyOf(out, count);
+      Arrays.sort(actual);
+      assertArrayEquals(bruteForce(store, slot), actual);
+    }
+
+    // Areas outside the grid find nothing, or only what reaches them
+    assertEquals(0, index.findTouching(5000, 5000, 10, 10, out));
+    assertEquals(store.size(), index.findTouching(-5000, -5000, 10000, 10000, out));
+  }
+
+  private static int[] bruteForce(RectangleStore store, int slot) {
+    return IntStream.range(0, store.size())
+        .filter(i -> store.getX(i) <= store.getX(slot) + store.getWidth(slot)
+            && store.getX(slot) <= store.getX(i) + store.getWidth(i)
+            && store.getY(i) <= store.getY(slot) + store.getLength(slot)
+            && store.getY(slot) <= store.getY(i) + store.getLength(i))
+        .toArray();
+  }
+
+  @Test
+  void testSmallOutArray() {
+    RectangleStore store = new RectangleStore();
+    for (int i = 0; i < 10; i++) {
+      store.add(i, i * 5, 0, 10, 10);
+    }
+    GridIndex index = GridIndex.build(store);
+    int[] all = new int[store.size()];
+    int count = index.findTouching(0, 0, 100, 10, all);
+
+    // Counts everything but only writes what fits, in the same order
+    int[] some = new int[3];
+    assertEquals(count, index.findTouching(0, 0, 100, 10, some));
+    assertArrayEquals(Arrays.copyOf(all, 3), some);
+    assertEquals(count, index.findTouching(0, 0, 100, 10, new int[0]));
+  }
+}
@@ -0,0 +1,61 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class ParallelEvaluatorTest {
+
+  private final RelationshipEvaluator evaluator = new RelationshipEvaluator();
+
+  @Test
+  void testParallelEvaluate() {
+    Random random = new Random(7);
+    List<DrawRectangle> scene = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      scene.add(new DrawRectangle(random.nextInt(10) * 10, random.nextInt(10) * 10,
+          (random.nextInt(4) + 1) * 10, (random.nextInt(4) + 1) * 10));
+    }
+    DrawRectangle target = scene.get(0);
+    ParallelEvaluator parallelEvaluator =
+        new ParallelEvaluator(evaluator, ForkJoinPool.commonPool(), 4);
+
+    // The partial results together have to be the same as evaluating in one go
+    List<Relationship> partials = Collections.synchronizedList(new ArrayList<>());
+    ParallelEvaluator.Evaluation evaluation = parallelEvaluator.evaluate(target, scene,
+        (e, result) -> partials.addAll(result.getRelationships()));
+    evaluation.join();
+    assertTrue(evaluation.isDone());
+    List<DrawRectangle> expected = evaluator.evaluate(target, scene).getRelationships().stream()
+        .map(Relationship::getSecond).collect(Collectors.toList());
+    List<DrawRectangle> actual = partials.stream().map(Relationship::getSecond)
+        .collect(Collectors.toList());
+    assertEquals(expected.size(), actual.size());
+    assertTrue(actual.containsAll(expected));
+
+    // Nothing is reported once it's cancelled, one thread so the pieces run one after the other
+    ForkJoinPool pool = new ForkJoinPool(1);
+    try {
+      ParallelEvaluator singleThreaded = new ParallelEvaluator(evaluator, pool, 4);
+      List<Relationship> cancelled = Collections.synchronizedList(new ArrayList<>());
+      ParallelEvaluator.Evaluation cancelledEvaluation = singleThreaded.evaluate(target, scene,
+          (e, result) -> {
+            e.cancel();
+            cancelled.addAll(result.getRelationships());
+          });
+      cancelledEvaluation.join();
+      assertTrue(cancelledEvaluation.isCancelled());
+      assertTrue(cancelled.size() < expected.size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class RectangleStoreTest {
+
+  private RectangleStore createStore() {
+    RectangleStore store = new RectangleStore(2);
+    store.add(10, 0, 0, 20, 30);
+    store.add(11, 10, 10, 30, 40);
+    store.add(12, 5, 5, 5, 5);
+    store.add(13, 20, 0, 20, 20);
+    store.add(14, 400, 400, 10, 10);
+    store.add(15, 20, 30, 10, 10);
+    return store;
+  }
+
+  @Test
+  void testQueries() {
+    RectangleStore store = createStore();
+    int[] out = new int[store.size()];
+
+    int count = store.findIntersecting(0, out);
+    assertArrayEquals(new int[] {1, 2}, Arrays.copyOf(out, count));
+
+    count = store.findContainedIn(0, out);
+    assertArrayEquals(new int[] {2}, Arrays.copyOf(out, count));
+
+    count = store.findContaining(2, out);
+    assertArrayEquals(new int[] {0}, Arrays.copyOf(out, count));
+
+    // Slot 5 only touches the corner, so it isn't adjacent
+    count = store.findAdjacent(0, out);
+    assertArrayEquals(new int[] {3}, Arrays.copyOf(out, count));
+  }
+
+  @Test
+  void testRemove() {
+    RectangleStore store = createStore();
+    store.remove(1);
+    // The last rectangle moves into the removed slot
+    assertEquals(5, store.size());
+    assertEquals(15, store.getId(1));
+    assertEquals(20, store.getX(1));
+    assertEquals(-1, store.slotOf(11));
+    assertEquals(4, store.slotOf(14));
+  }
+}
@@ -0,0 +1,69 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RelationshipCacheTest {
+
+  private final RelationshipEvaluator evaluator = new RelationshipEvaluator();
+
+  @Test
+  void testHitsAndInvalidate() {
+    RelationshipCache cache = new RelationshipCache();
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle r1 = new DrawRectangle(10, 10, 30, 40);
+    DrawRectangle r2 = new DrawRectangle(400, 400, 10, 10);
+    // Random names could clash, and invalidation goes by name
+    r.setName("r");
+    r1.setName("r1");
+    r2.setName("r2");
+    AtomicInteger computed = new AtomicInteger();
+
+    Relationship first = cache.get(r, r1, () -> {
+      computed.incrementAndGet();
+      return evaluator.evaluatePair(r, r1);
+    });
+    assertSame(first, cache.get(r, r1, () -> {
+      computed.incrementAndGet();
+      return null;
+    }));
+    // Unrelated pairs are remembered too
+    assertNull(cache.get(r, r2, () -> evaluator.evaluatePair(r, r2)));
+    assertNull(cache.get(r, r2, () -> evaluator.evaluatePair(r, r2)));
+    assertEquals(1, computed.get());
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    // Only pairs with the invalidated rectangle go
+    cache.invalidate(r1.getName());
+    assertEquals(1, cache.size());
+    cache.get(r, r1, () -> {
+      computed.incrementAndGet();
+      return null;
+    });
+    assertEquals(2, computed.get());
+  }
+
+  @Test
+  void testEviction() {
+    RelationshipCache cache = new RelationshipCache(2);
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle r1 = new DrawRectangle(10, 10, 30, 40);
+    DrawRectangle r2 = new DrawRectangle(400, 400, 10, 10);
+    cache.get(r, r1, () -> null);
+    cache.get(r, r2, () -> null);
+    // Touch the first pair, so the second is the least recently used one
+    cache.get(r, r1, () -> null);
+    cache.get(r1, r2, () -> null);
+    assertEquals(2, cache.size());
+    assertEquals(1, cache.getEvictions());
+    assertEquals(1, cache.getHits());
+    cache.get(r, r1, () -> null);
+    assertEquals(2, cache.getHits());
+  }
+}
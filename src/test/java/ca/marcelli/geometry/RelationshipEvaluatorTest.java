@@ -0,0 +1,122 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.entities.DrawPoint;
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.metrics.Metrics;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+
+class RelationshipEvaluatorTest {
+
+  private final RelationshipEvaluator evaluator = new RelationshipEvaluator();
+
+  @Test
+  void testEvaluatePair() {
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+
+    // Intersection carries the crossing points
+    Relationship intersects = evaluator.evaluatePair(r, new DrawRectangle(10, 10, 30, 40));
+    assertEquals(RelationshipKind.INTERSECTS, intersects.getKind());
+    assertEquals(new DrawRectangle(10, 10, 10, 20), intersects.toIntersectionRectangle());
+    assertTrue(intersects.toPointsAndSegments()
+        .containsAll(List.of(new DrawPoint(20, 10), new DrawPoint(10, 30))));
+    assertTrue(intersects.describe().contains("at point (20,10)"));
+
+    // Containment both ways
+    assertEquals(RelationshipKind.CONTAINS,
+        evaluator.evaluatePair(r, new DrawRectangle(5, 5, 5, 5)).getKind());
+    assertEquals(RelationshipKind.CONTAINED_BY,
+        evaluator.evaluatePair(r, new DrawRectangle(-5, -5, 50, 50)).getKind());
+
+    // Adjacency
+    Relationship adjacent = evaluator.evaluatePair(r, new DrawRectangle(0, 30, 20, 30));
+    assertEquals(RelationshipKind.ADJACENT, adjacent.getKind());
+    assertEquals(AdjacencyType.PROPER, adjacent.getAdjacency());
+    int[] segment = new int[4];
+    adjacent.getSegment(0, segment);
+    assertArrayEquals(new int[] {0, 30, 20, 30}, segment);
+
+    // Nothing
+    assertNull(evaluator.evaluatePair(r, new DrawRectangle(400, 400, 10, 10)));
+  }
+
+  @Test
+  void testEvaluate() {
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle adjacent = new DrawRectangle(20, 0, 20, 20);
+    r.setName("A");
+    adjacent.setName("C");
+    List<DrawRectangle> scene = List.of(r, new DrawRectangle(10, 10, 30, 40),
+        new DrawRectangle(400, 400, 10, 10), adjacent);
+    EvaluationResult result = evaluator.evaluate(r, scene);
+
+    // The target itself is skipped, and results follow the order of the scene
+    assertEquals(2, result.getRelationships().size());
+    assertEquals(RelationshipKind.INTERSECTS, result.getRelationships().get(0).getKind());
+    assertEquals(RelationshipKind.ADJACENT, result.getRelationships().get(1).getKind());
+    assertEquals(1, result.getIntersections().size());
+    assertEquals(3, result.getPointsAndSegments().size());
+    assertEquals("C is Sub-Line Adjacent to A", result.getRelationships().get(1).describe());
+  }
+
+  @Test
+  void testEvaluateMovesMetrics() {
+    long intersections = Metrics.counter("geometry.getIntersectionBounds.calls").get();
+    long containments = Metrics.counter("geometry.hasContainmentWith.calls").get();
+    long adjacencies = Metrics.counter("geometry.getAdjacency.calls").get();
+    long crossings = Metrics.histogram("geometry.crossings").getCount();
+    long pairs = Metrics.counter("evaluate.pairs").get();
+
+    // One intersecting, one adjacent, one contained
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    evaluator.evaluate(r, List.of(r, new DrawRectangle(10, 10, 30, 40),
+        new DrawRectangle(20, 0, 20, 20), new DrawRectangle(5, 5, 5, 5)));
+    assertEquals(intersections + 3, Metrics.counter("geometry.getIntersectionBounds.calls").get());
+    assertTrue(containments + 2 <= Metrics.counter("geometry.hasContainmentWith.calls").get());
+    assertEquals(adjacencies + 1, Metrics.counter("geometry.getAdjacency.calls").get());
+    assertEquals(crossings + 1, Metrics.histogram("geometry.crossings").getCount());
+    assertEquals(pairs + 3, Metrics.counter("evaluate.pairs").get());
+  }
+
+  @Test
+  void testPhaseTiming() {
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    List<DrawRectangle> scene = List.of(r, new DrawRectangle(10, 10, 30, 40),
+        new DrawRectangle(400, 400, 10, 10), new DrawRectangle(20, 0, 20, 20));
+    EvaluationResult untimed = evaluator.evaluate(r, scene);
+    assertFalse(untimed.isPhaseTimed());
+    assertEquals(3, untimed.getPairsChecked());
+    assertEquals(0, untimed.getPhaseNanos(EvaluationPhase.INTERSECTION));
+
+    RelationshipEvaluator timing = new RelationshipEvaluator();
+    timing.setTimingPhases(true);
+    ParallelEvaluator parallelEvaluator =
+        new ParallelEvaluator(timing, ForkJoinPool.commonPool(), 1);
+    AtomicReference<ParallelEvaluator.Evaluation> done = new AtomicReference<>();
+    ParallelEvaluator.Evaluation evaluation =
+        parallelEvaluator.evaluate(r, scene, (e, result) -> {
+        }, done::set);
+    evaluation.join();
+
+    // Totals cover every piece, including the ones that found nothing
+    assertEquals(evaluation, done.get());
+    assertTrue(evaluation.getElapsedNanos() >= 0);
+    assertEquals(3, evaluation.getPairsChecked());
+    assertEquals(2, evaluation.getRelationshipsFound());
+    assertTrue(evaluation.isPhaseTimed());
+    long timed = 0;
+    for (EvaluationPhase phase : EvaluationPhase.values()) {
+      assertTrue(evaluation.getPhaseNanos(phase) >= 0);
+      timed += evaluation.getPhaseNanos(phase);
+    }
+    assertTrue(timed > 0);
+  }
+}
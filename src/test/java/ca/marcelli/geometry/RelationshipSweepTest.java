@@ -0,0 +1,76 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class RelationshipSweepTest {
+
+  @Test
+  void testFindAll() {
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle intersecting = new DrawRectangle(10, 10, 30, 40);
+    DrawRectangle contained = new DrawRectangle(2, 2, 5, 5);
+    DrawRectangle adjacent = new DrawRectangle(0, 30, 20, 30);
+    DrawRectangle far = new DrawRectangle(400, 400, 10, 10);
+    r.setName("r");
+    intersecting.setName("intersecting");
+    contained.setName("contained");
+    adjacent.setName("adjacent");
+    far.setName("far");
+    List<Relationship> result =
+        RelationshipSweep.findAll(List.of(r, intersecting, contained, adjacent, far));
+
+    Map<String, RelationshipKind> kinds = new HashMap<>();
+    result.forEach(rel -> kinds.put(rel.getFirst().getName() + "|" + rel.getSecond().getName(),
+        rel.getKind()));
+    assertEquals(RelationshipKind.INTERSECTS, kinds.get(r.getName() + "|" + intersecting.getName()));
+    assertEquals(RelationshipKind.CONTAINS, kinds.get(r.getName() + "|" + contained.getName()));
+    assertEquals(RelationshipKind.ADJACENT, kinds.get(r.getName() + "|" + adjacent.getName()));
+    // The adjacent rectangle also intersects the second one
+    assertEquals(4, result.size());
+  }
+
+  @Test
+  void testMatchesPairwise() {
+    // Snap to a coarse grid so there are plenty of shared sides and corners
+    Random random = new Random(42);
+    List<DrawRectangle> scene = new ArrayList<>();
+    // Equal rectangles can come up, so they're told apart by identity rather than equals
+    Map<DrawRectangle, Integer> ids = new IdentityHashMap<>();
+    for (int i = 0; i < 80; i++) {
+      DrawRectangle rectangle = new DrawRectangle(random.nextInt(20) * 10,
+          random.nextInt(20) * 10, (random.nextInt(5) + 1) * 10, (random.nextInt(5) + 1) * 10);
+      scene.add(rectangle);
+      ids.put(rectangle, i);
+    }
+
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < scene.size(); i++) {
+      for (int j = i + 1; j < scene.size(); j++) {
+        Relationship rel = RelationshipSweep.classify(scene.get(i), scene.get(j));
+        if (null != rel) {
+          expected.add(describe(i, j, rel));
+        }
+      }
+    }
+    List<String> actual = new ArrayList<>();
+    RelationshipSweep.findAll(scene).forEach(rel -> actual.add(
+        describe(ids.get(rel.getFirst()), ids.get(rel.getSecond()), rel)));
+
+    expected.sort(String::compareTo);
+    actual.sort(String::compareTo);
+    assertEquals(expected, actual);
+  }
+
+  private static String describe(int i, int j, Relationship rel) {
+    return i + " " + j + " " + rel.getKind() + " " + rel.getAdjacency();
+  }
+}
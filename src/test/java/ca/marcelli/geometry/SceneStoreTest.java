@@ -0,0 +1,173 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class SceneStoreTest {
+
+  @Test
+  void testSnapshotsDontChange() {
+    List<DrawRectangle> initial = new ArrayList<>();
+    // Enough to span a few chunks
+    for (int i = 0; i < SceneStore.CHUNK_SIZE * 2 + 10; i++) {
+      initial.add(named("r" + i, i));
+    }
+    SceneStore store = new SceneStore(initial);
+    SceneStore.Snapshot before = store.snapshot();
+    assertEquals(initial.size(), before.size());
+    assertEquals(new HashSet<>(initial), new HashSet<>(before.asList()));
+
+    // Replace, add, and delete from the first chunk so the last rectangle moves into the hole
+    DrawRectangle replacement = named("r5", 1000);
+    assertSame(initial.get(5), store.put(replacement));
+    assertNull(store.put(named("new", 2000)));
+    assertSame(initial.get(0), store.remove("r0"));
+    assertNull(store.remove("r0"));
+
+    // The old snapshot still has exactly what it had
+    assertEquals(initial.size(), before.size());
+    assertEquals(new HashSet<>(initial), new HashSet<>(before.asList()));
+
+    SceneStore.Snapshot after = store.snapshot();
+    assertEquals(before.getVersion() + 3, after.getVersion());
+    assertEquals(initial.size(), after.size());
+    Set<String> names = new HashSet<>();
+    after.asList().forEach(r -> names.add(r.getName()));
+    assertEquals(after.size(), names.size());
+    assertTrue(names.contains("new"));
+    assertTrue(!names.contains("r0"));
+    assertTrue(after.asList().contains(replacement));
+    assertTrue(!after.asList().contains(initial.get(5)));
+  }
+
+  @Test
+  void testRemoveEverything() {
+    SceneStore store = new SceneStore();
+    for (int i = 0; i < SceneStore.CHUNK_SIZE + 1; i++) {
+      store.put(named("r" + i, i));
+    }
+    SceneStore.Snapshot full = store.snapshot();
+    for (int i = SceneStore.CHUNK_SIZE; i >= 0; i--) {
+      assertEquals("r" + i, store.remove("r" + i).getName());
+    }
+    assertEquals(0, store.snapshot().size());
+    assertEquals(SceneStore.CHUNK_SIZE + 1, full.size());
+    assertEquals("r" + SceneStore.CHUNK_SIZE, full.get(SceneStore.CHUNK_SIZE).getName());
+
+    // Removing the moved rectangle later finds it in its new slot
+    store.put(named("a", 0));
+    store.put(named("b", 1));
+    store.put(named("c", 2));
+    store.remove("a");
+    assertEquals("c", store.remove("c").getName());
+    assertEquals(List.of("b"), names(store.snapshot()));
+  }
+
+  @Test
+  void testNamesOnAdd() {
+    DrawRectangle named = named("Ada", 0);
+    SceneStore store = new SceneStore(
+        List.of(new DrawRectangle(1, 0, 10, 10), named, new DrawRectangle(2, 0, 10, 10)));
+    // The hand named one keeps its name, the others get free ones
+    assertEquals("Ada", named.getName());
+    Set<String> names = new HashSet<>(names(store.snapshot()));
+    assertEquals(3, names.size());
+
+    // Unnamed rectangles never replace anything
+    DrawRectangle added = new DrawRectangle(3, 0, 10, 10);
+    assertNull(store.put(added));
+    assertTrue(names.add(added.getName()));
+    assertEquals(4, store.snapshot().size());
+  }
+
+  @Test
+  void testQueryMatchesBruteForce() {
+    Random random = new Random(5);
+    SceneStore store = new SceneStore();
+    // Past a few rebuilds of the grid, with some deletes and replacements along the way
+    for (int i = 0; i < SceneStore.CHUNK_SIZE * 20; i++) {
+      DrawRectangle rectangle = new DrawRectangle(random.nextInt(4000) - 2000,
+          random.nextInt(4000) - 2000, random.nextInt(200), random.nextInt(200));
+      rectangle.setName("r" + random.nextInt(SceneStore.CHUNK_SIZE * 16));
+      store.put(rectangle);
+      if (0 == i % 5) {
+        store.remove("r" + random.nextInt(SceneStore.CHUNK_SIZE * 16));
+      }
+    }
+    // One over everything, in every bucket
+    store.put(new DrawRectangle(-100_000, -100_000, 200_000, 200_000));
+
+    SceneStore.Snapshot snapshot = store.snapshot();
+    for (int i = 0; i < 200; i++) {
+      int x = random.nextInt(5000) - 2500;
+      int y = random.nextInt(5000) - 2500;
+      int width = random.nextInt(300);
+      int length = random.nextInt(300);
+      assertEquals(bruteForce(snapshot, x, y, width, length),
+          identities(snapshot.query(x, y, width, length)));
+    }
+    // An area with more cells than the grid has buckets
+    assertEquals(bruteForce(snapshot, -50_000, -50_000, 100_000, 100_000),
+        identities(snapshot.query(-50_000, -50_000, 100_000, 100_000)));
+    assertEquals(snapshot.size(), snapshot.query(-50_000, -50_000, 100_000, 100_000).size());
+  }
+
+  @Test
+  void testOldSnapshotQueries() {
+    SceneStore store = new SceneStore(List.of(named("a", 0), named("b", 20)));
+    SceneStore.Snapshot before = store.snapshot();
+    DrawRectangle moved = named("a", 500);
+    store.put(moved);
+    store.remove("b");
+
+    // The old snapshot still finds what it had where it was, the new one doesn't
+    assertEquals(2, before.query(0, 0, 30, 10).size());
+    assertEquals(0, store.snapshot().query(0, 0, 30, 10).size());
+    assertEquals(List.of(moved), store.snapshot().query(moved));
+    assertEquals(0, before.query(moved).size());
+  }
+
+  private static Set<DrawRectangle> bruteForce(SceneStore.Snapshot snapshot, int x, int y,
+                                               int width, int length) {
+    Set<DrawRectangle> touching = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (DrawRectangle r : snapshot.asList()) {
+      if (r.getX() <= x + width && x <= r.getX() + r.getWidth()
+          && r.getY() <= y + length && y <= r.getY() + r.getLength()) {
+        touching.add(r);
+      }
+    }
+    return touching;
+  }
+
+  // Each rectangle once, so duplicates would show up as a size mismatch
+  private static Set<DrawRectangle> identities(List<DrawRectangle> rectangles) {
+    Set<DrawRectangle> set = Collections.newSetFromMap(new IdentityHashMap<>());
+    set.addAll(rectangles);
+    assertEquals(rectangles.size(), set.size());
+    return set;
+  }
+
+  private static List<String> names(SceneStore.Snapshot snapshot) {
+    List<String> names = new ArrayList<>();
+    snapshot.asList().forEach(r -> names.add(r.getName()));
+    return names;
+  }
+
+  private static DrawRectangle named(String name, int x) {
+    DrawRectangle rectangle = new DrawRectangle(x, 0, 10, 10);
+    rectangle.setName(name);
+    return rectangle;
+  }
+}
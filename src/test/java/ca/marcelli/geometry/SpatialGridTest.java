@@ -0,0 +1,43 @@
+package ca.marcelli.geometry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.entities.DrawRectangle;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SpatialGridTest {
+
+  @Test
+  void testQuery() {
+    SpatialGrid grid = new SpatialGrid(16);
+    DrawRectangle r = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle overlapping = new DrawRectangle(10, 10, 30, 40);
+    DrawRectangle adjacent = new DrawRectangle(20, 0, 20, 20);
+    DrawRectangle far = new DrawRectangle(400, 400, 10, 10);
+    List.of(r, overlapping, adjacent, far).forEach(grid::insert);
+
+    // Overlapping and edge sharing rectangles are candidates, each one only once
+    List<DrawRectangle> candidates = grid.query(r);
+    assertEquals(3, candidates.size());
+    assertTrue(candidates.containsAll(List.of(r, overlapping, adjacent)));
+    assertFalse(candidates.contains(far));
+  }
+
+  @Test
+  void testRemove() {
+    SpatialGrid grid = new SpatialGrid(16);
+    DrawRectangle r = new DrawRectangle(0, 0, 100, 100);
+    DrawRectangle r1 = new DrawRectangle(0, 0, 100, 100);
+    grid.insert(r);
+    grid.insert(r1);
+
+    // Removal is by identity, the equal rectangle stays
+    assertTrue(grid.remove(r));
+    assertFalse(grid.remove(r));
+    assertEquals(List.of(r1), grid.query(50, 50, 1, 1));
+    assertEquals(1, grid.size());
+  }
+}
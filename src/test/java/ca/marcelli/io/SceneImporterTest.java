@@ -0,0 +1,106 @@
+package ca.marcelli.io;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.geometry.RectangleStore;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SceneImporterTest {
+
+  @TempDir
+  Path directory;
+
+  private Path write(String contents) throws IOException {
+    Path file = directory.resolve("scene.csv");
+    Files.write(file, contents.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  @Test
+  void testImport() throws IOException {
+    Path file = write("id,x,y,width,length\n"
+        + "1,0,0,20,30\r\n"
+        + "\n"
+        + "# comment\n"
+        + "2, -10, 5, 2147483647, 7\n"
+        + "3,-2147483648,1,1,1");
+
+    // Same result whether the whole file fits in a window or every line is split across a few
+    for (int windowSize : new int[] {1 << 20, 3}) {
+      RectangleStore store = new RectangleStore();
+      ImportStats stats = SceneImporter.importFile(file, store, windowSize);
+      assertEquals(3, stats.getRectangles());
+      assertEquals(3, store.size());
+      assertEquals(2, store.getId(1));
+      assertEquals(-10, store.getX(1));
+      assertEquals(Integer.MAX_VALUE, store.getWidth(1));
+      assertEquals(30, store.getLength(0));
+      assertEquals(Integer.MIN_VALUE, store.getX(2));
+    }
+  }
+
+  @Test
+  void testMalformed() throws IOException {
+    RectangleStore store = new RectangleStore();
+    IOException e = assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,0,20,30\n2,0,0,20\n"), store));
+    assertTrue(e.getMessage().startsWith("Line 2"));
+    assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,0,20,30x\n"), store));
+    assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,0,20,2147483648\n"), store));
+  }
+
+  @Test
+  void testByteOrderMark() throws IOException {
+    Path file = write("\uFEFF1,0,0,20,30\n2,5,5,10,10\n");
+    for (int windowSize : new int[] {1 << 20, 2}) {
+      RectangleStore store = new RectangleStore();
+      assertEquals(2, SceneImporter.importFile(file, store, windowSize).getRectangles());
+      assertEquals(1, store.getId(0));
+    }
+  }
+
+  @Test
+  void testSpacesAndNegativeSizes() throws IOException {
+    RectangleStore store = new RectangleStore();
+    IOException e = assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1 2,3,4,5,6\n"), store));
+    assertTrue(e.getMessage().startsWith("Line 1"));
+    assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,- 3,4,5,6\n"), store));
+    e = assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,0,20,30\n2,0,0,-20,30\n"), store));
+    assertTrue(e.getMessage().startsWith("Line 2"));
+    assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,0,20,-30\n"), store));
+
+    // Spaces around numbers are still fine
+    RectangleStore spaced = new RectangleStore();
+    SceneImporter.importFile(write(" 7 , 1,2 ,3\t,4 \r\n"), spaced);
+    assertEquals(7, spaced.getId(0));
+    assertEquals(3, spaced.getWidth(0));
+  }
+
+  @Test
+  void testEdgeOverflow() throws IOException {
+    RectangleStore store = new RectangleStore();
+    IOException e = assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,0,20,30\n2,2147483640,0,8,30\n"), store));
+    assertTrue(e.getMessage().startsWith("Line 2"));
+    assertThrows(IOException.class,
+        () -> SceneImporter.importFile(write("1,0,2147483647,20,1\n"), store));
+
+    // Right up to the largest coordinate is fine, and so are negative corners
+    RectangleStore edge = new RectangleStore();
+    SceneImporter.importFile(write("1,2147483640,2147483000,7,647\n2,-2147483648,0,10,10\n"), edge);
+    assertEquals(2, edge.size());
+  }
+}
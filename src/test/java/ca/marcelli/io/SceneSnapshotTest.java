@@ -0,0 +1,166 @@
+package ca.marcelli.io;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import ca.marcelli.entities.DrawRectangle;
+import ca.marcelli.geometry.GridIndex;
+import ca.marcelli.geometry.RectangleStore;
+import ca.marcelli.geometry.SceneStore;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SceneSnapshotTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void testRoundTrip() throws IOException {
+    DrawRectangle a = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle b = new DrawRectangle(-10, 10, 30, 40);
+    DrawRectangle c = new DrawRectangle(20, 0, 20, 20);
+    a.setName("Alice");
+    b.setName("Zo\u00eb");
+    c.setName("");
+    Path file = directory.resolve("scene.snap");
+    SceneSnapshot.write(file, List.of(a, b, c), true);
+
+    SceneSnapshot snapshot = SceneSnapshot.load(file);
+    RectangleStore store = snapshot.getStore();
+    assertEquals(3, store.size());
+    assertEquals(1, store.getId(1));
+    assertEquals(-10, store.getX(1));
+    assertEquals(40, store.getLength(1));
+    assertEquals("Zo\u00eb", snapshot.getName(1));
+    assertEquals("", snapshot.getName(2));
+    List<DrawRectangle> rectangles = snapshot.toRectangles();
+    assertEquals(a, rectangles.get(0));
+    assertEquals("Alice", rectangles.get(0).getName());
+
+    // The saved index finds the same as a freshly built one
+    GridIndex built = GridIndex.build(store);
+    int[] expected = new int[3];
+    int[] actual = new int[3];
+    for (int slot = 0; slot < 3; slot++) {
+      int count = built.findTouching(slot, expected);
+      assertEquals(count, snapshot.getIndex().findTouching(slot, actual));
+      assertArrayEquals(Arrays.copyOf(expected, count), Arrays.copyOf(actual, count));
+    }
+  }
+
+  @Test
+  void testWithoutNamesOrIndex() throws IOException {
+    RectangleStore store = new RectangleStore();
+    store.add(7, 1, 2, 3, 4);
+    Path file = directory.resolve("scene.snap");
+    SceneSnapshot.write(file, store, null, null);
+
+    SceneSnapshot snapshot = SceneSnapshot.load(file);
+    assertFalse(snapshot.hasNames());
+    assertNull(snapshot.getName(0));
+    assertNull(snapshot.getIndex());
+    assertEquals(7, snapshot.getStore().getId(0));
+    assertEquals(4, snapshot.getStore().getLength(0));
+
+    Files.write(file, new byte[] {1, 2, 3});
+    assertThrows(IOException.class, () -> SceneSnapshot.load(file));
+  }
+
+  @Test
+  void testUnnamedRoundTrip() throws IOException {
+    Path file = directory.resolve("scene.snap");
+    List<DrawRectangle> unnamed = List.of(new DrawRectangle(0, 0, 20, 30),
+        new DrawRectangle(10, 10, 30, 40), new DrawRectangle(20, 0, 20, 20));
+    SceneSnapshot.write(file, unnamed, false);
+    SceneSnapshot snapshot = SceneSnapshot.load(file);
+    assertFalse(snapshot.hasNames());
+
+    // Each one gets its own name from the scene instead of all sharing one
+    SceneStore scene = new SceneStore(snapshot.toRectangles());
+    assertEquals(3, scene.snapshot().size());
+
+    // Next to named ones, the unnamed ones still come back without a name
+    DrawRectangle named = new DrawRectangle(5, 5, 5, 5);
+    named.setName("Alice");
+    SceneSnapshot.write(file, List.of(unnamed.get(0), named, unnamed.get(1)), false);
+    List<DrawRectangle> rectangles = SceneSnapshot.load(file).toRectangles();
+    assertNull(rectangles.get(0).getName());
+    assertEquals("Alice", rectangles.get(1).getName());
+    assertEquals(3, new SceneStore(rectangles).snapshot().size());
+  }
+
+  @Test
+  void testSectionHeadersAfterFullBuffer() throws IOException {
+    // 5 columns of 262,144 ints fill the write buffer exactly, right before the names header
+    int count = 262_144;
+    RectangleStore store = new RectangleStore();
+    String[] names = new String[count];
+    for (int i = 0; i < count; i++) {
+      store.add(i, i % 512 * 10, i / 512 * 10, 10, 10);
+      names[i] = "R" + i;
+    }
+    GridIndex index = GridIndex.build(store);
+    Path file = directory.resolve("scene.snap");
+    SceneSnapshot.write(file, store, names, index);
+    SceneSnapshot snapshot = SceneSnapshot.load(file);
+    assertEquals(count, snapshot.getStore().size());
+    assertEquals("R" + (count - 1), snapshot.getName(count - 1));
+    int[] out = new int[count];
+    assertEquals(index.findTouching(count - 1, out),
+        snapshot.getIndex().findTouching(count - 1, out));
+
+    // And right before the index header when there are no names
+    SceneSnapshot.write(file, store, null, index);
+    assertEquals(count, SceneSnapshot.load(file).getIndex().getStore().size());
+  }
+
+  @Test
+  void testCorruptFiles() throws IOException {
+    DrawRectangle a = new DrawRectangle(0, 0, 20, 30);
+    DrawRectangle b = new DrawRectangle(10, 10, 30, 40);
+    a.setName("A");
+    b.setName("B");
+    Path file = directory.resolve("scene.snap");
+    SceneSnapshot.write(file, List.of(a, b), true);
+    byte[] original = Files.readAllBytes(file);
+    ByteBuffer header = ByteBuffer.wrap(original).order(ByteOrder.LITTLE_ENDIAN);
+    int namesOffset = (int) header.getLong(16);
+    int indexOffset = (int) header.getLong(24);
+
+    // Each of these used to load, then fail with something other than an IOException
+    assertCorrupt(file, original, 8, -1);
+    assertCorrupt(file, original, indexOffset, 0);
+    assertCorrupt(file, original, indexOffset + 12, 0);
+    assertCorrupt(file, original, indexOffset + 20, 1);
+    assertCorrupt(file, original, indexOffset + 24, 1);
+    assertCorrupt(file, original, indexOffset + 28 + 4 * header.getInt(indexOffset + 12)
+        * header.getInt(indexOffset + 16), 2);
+    assertCorrupt(file, original, namesOffset + 8, 5);
+    assertCorrupt(file, original, namesOffset + 8, -1);
+  }
+
+  // Writes the original with one int replaced, which has to fail to load
+  private static void assertCorrupt(Path file, byte[] original, int position, int value)
+      throws IOException {
+    Files.write(file, original);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      ByteBuffer patch = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value);
+      patch.flip();
+      channel.write(patch, position);
+    }
+    assertThrows(IOException.class, () -> SceneSnapshot.load(file));
+  }
+}
@@ -0,0 +1,87 @@
+package ca.marcelli.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import org.junit.jupiter.api.Test;
+
+class MetricsTest {
+
+  @Test
+  void testBuckets() {
+    for (long nanos : new long[] {0, 1, 3, 4, 7, 8, 1000, 123_456_789, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucketOf(nanos);
+      assertTrue(nanos <= LatencyHistogram.upperBoundOf(bucket), "nanos " + nanos);
+      // Never more than a quarter over
+      assertTrue(LatencyHistogram.upperBoundOf(bucket) - nanos <= nanos / 4 + 1, "nanos " + nanos);
+      if (bucket > 0) {
+        assertTrue(nanos > LatencyHistogram.upperBoundOf(bucket - 1), "nanos " + nanos);
+      }
+    }
+  }
+
+  @Test
+  void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getPercentileNanos(0.5));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1_000_000, histogram.getMaxNanos());
+    assertEquals(500_500_000, histogram.getTotalNanos());
+    long p50 = histogram.getPercentileNanos(0.5);
+    assertTrue(p50 >= 500_000 && p50 <= 625_000, "p50 " + p50);
+    long p99 = histogram.getPercentileNanos(0.99);
+    assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 " + p99);
+    assertEquals(1_000_000, histogram.getPercentileNanos(1));
+  }
+
+  @Test
+  void testDisabledRecordsNothing() {
+    Counter counter = new Counter();
+    LatencyHistogram histogram = new LatencyHistogram();
+    Metrics.setEnabled(false);
+    try {
+      long start = Metrics.startTimer();
+      counter.increment();
+      counter.add(5);
+      histogram.record(10);
+      histogram.recordSince(start);
+    } finally {
+      Metrics.setEnabled(true);
+    }
+    assertEquals(0, counter.get());
+    assertEquals(0, histogram.getCount());
+
+    histogram.recordSince(Metrics.startTimer());
+    counter.increment();
+    assertEquals(1, counter.get());
+    assertEquals(1, histogram.getCount());
+  }
+
+  @Test
+  void testMBean() throws Exception {
+    Metrics.registerMBean();
+    // Registering twice is fine
+    Metrics.registerMBean();
+    Metrics.counter("test.counter").add(3);
+    Metrics.histogram("test.latency").record(2000);
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+    assertEquals(true, server.getAttribute(name, "Enabled"));
+    TabularData counters = (TabularData) server.getAttribute(name, "Counters");
+    assertTrue(3 <= (Long) counters.get(new Object[] {"test.counter"}).get("value"));
+    TabularData latencies = (TabularData) server.getAttribute(name, "Latencies");
+    CompositeData latency =
+        (CompositeData) latencies.get(new Object[] {"test.latency"}).get("value");
+    assertTrue(1 <= (Long) latency.get("count"));
+    assertTrue(2000 <= (Long) latency.get("maxNanos"));
+  }
+}
@@ -0,0 +1,110 @@
+package ca.marcelli.vector.bench;
+
+import ca.marcelli.geometry.RectangleStore;
+import ca.marcelli.vector.IntersectionKernel;
+import ca.marcelli.vector.ScalarIntersectionKernel;
+import ca.marcelli.vector.VectorIntersectionKernel;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One rectangle against a whole scene, for intersection and containment both ways. The kernels
+ * write bitmaps, the store baseline is the existing scalar path that writes matching slots instead.
+ * Every call moves on to the next target so branch prediction can't learn one answer.
+ * <p>
+ * Run with
+ * {@code java --add-modules jdk.incubator.vector -jar vector/benchmarks/target/vector-benchmarks.jar},
+ * the forks add the module themselves.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+
+  // Uniform over a square, sized so a typical rectangle touches a handful of others
+  private static final int WORLD = 10_000;
+  private static final int TARGETS = 1024;
+
+  @Param({"1000", "100000", "1000000"})
+  private int size;
+
+  private int[] xs;
+  private int[] ys;
+  private int[] widths;
+  private int[] lengths;
+  private RectangleStore store;
+  private final IntersectionKernel scalar = new ScalarIntersectionKernel();
+  private IntersectionKernel vector;
+  private long[] intersects;
+  private long[] contained;
+  private long[] containing;
+  private int[] slots;
+  private int target;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(1);
+    xs = new int[size];
+    ys = new int[size];
+    widths = new int[size];
+    lengths = new int[size];
+    int[] ids = new int[size];
+    for (int i = 0; i < size; i++) {
+      ids[i] = i;
+      xs[i] = random.nextInt(WORLD);
+      ys[i] = random.nextInt(WORLD);
+      widths[i] = 1 + random.nextInt(200);
+      lengths[i] = 1 + random.nextInt(200);
+    }
+    store = RectangleStore.wrap(ids, xs, ys, widths, lengths, size);
+    vector = new VectorIntersectionKernel();
+    intersects = new long[IntersectionKernel.words(size)];
+    contained = new long[IntersectionKernel.words(size)];
+    containing = new long[IntersectionKernel.words(size)];
+    slots = new int[size];
+  }
+
+  @Benchmark
+  public long scalarKernel() {
+    return run(scalar);
+  }
+
+  @Benchmark
+  public long vectorKernel() {
+    return run(vector);
+  }
+
+  @Benchmark
+  public int storeScan() {
+    int t = nextTarget();
+    return store.findIntersecting(xs[t], ys[t], widths[t], lengths[t], slots)
+        + store.findContainedIn(xs[t], ys[t], widths[t], lengths[t], slots)
+        + store.findContaining(xs[t], ys[t], widths[t], lengths[t], slots);
+  }
+
+  private long run(IntersectionKernel kernel) {
+    int t = nextTarget();
+    kernel.evaluate(xs[t], ys[t], widths[t], lengths[t], xs, ys, widths, lengths, size,
+        intersects, contained, containing);
+    return intersects[0] ^ contained[0] ^ containing[0];
+  }
+
+  private int nextTarget() {
+    target = (target + 1) % Math.min(TARGETS, size);
+    return target;
+  }
+}
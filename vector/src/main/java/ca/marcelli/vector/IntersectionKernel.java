@@ -0,0 +1,49 @@
+package ca.marcelli.vector;
+
+/**
+ * Checks one rectangle against many at once, over coordinate columns like the ones in a
+ * {@link ca.marcelli.geometry.RectangleStore}, and marks the hits in bitmaps.
+ * <p>
+ * Bit i of a bitmap is bit {@code i % 64} of word {@code i / 64}. The rules are the same as
+ * {@link ca.marcelli.geometry.RectangleMath}, including what happens to rectangles with no area.
+ * Implementations hold no state, so one can be shared by any number of threads.
+ */
+public interface IntersectionKernel {
+
+  /**
+   * How many longs a bitmap needs to hold the given number of bits.
+   */
+  static int words(int count) {
+    return (count + 63) >>> 6;
+  }
+
+  /**
+   * Check the target against the first count rectangles of the columns. Each bitmap is cleared and
+   * then marked for the rectangles that:
+   * <ul>
+   *   <li>intersects: intersect the target</li>
+   *   <li>contained: the target contains</li>
+   *   <li>containing: contain the target</li>
+   * </ul>
+   *
+   * @param x          target x
+   * @param y          target y
+   * @param width      target width
+   * @param length     target length
+   * @param xs         x of each rectangle
+   * @param ys         y of each rectangle
+   * @param widths     width of each rectangle
+   * @param lengths    length of each rectangle
+   * @param count      how many rectangles to check
+   * @param intersects bitmap of at least {@link #words}(count) longs
+   * @param contained  same
+   * @param containing same
+   */
+  void evaluate(int x, int y, int width, int length, int[] xs, int[] ys, int[] widths,
+                int[] lengths, int count, long[] intersects, long[] contained, long[] containing);
+
+  /**
+   * Short name for logs and benchmarks.
+   */
+  String getName();
+}
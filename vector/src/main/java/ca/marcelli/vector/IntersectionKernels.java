@@ -0,0 +1,35 @@
+package ca.marcelli.vector;
+
+/**
+ * Picks the kernel to use.
+ */
+public final class IntersectionKernels {
+
+  // Below this many lanes the Vector API is emulated or barely parallel, the scalar loop wins
+  private static final int MIN_LANES = 4;
+
+  private IntersectionKernels() {
+  }
+
+  /**
+   * The vector kernel if the Vector API is available and the CPU has useful vector registers,
+   * otherwise the scalar one. Setting the {@code rectangles.vector} system property to false forces
+   * the scalar one, for comparing.
+   *
+   * @return the kernel
+   */
+  public static IntersectionKernel best() {
+    if (Boolean.parseBoolean(System.getProperty("rectangles.vector", "true"))) {
+      try {
+        // Loaded by name, so nothing links against jdk.incubator.vector unless this line runs
+        Class<?> vector = Class.forName("ca.marcelli.vector.VectorIntersectionKernel");
+        if ((Integer) vector.getMethod("lanes").invoke(null) >= MIN_LANES) {
+          return (IntersectionKernel) vector.getDeclaredConstructor().newInstance();
+        }
+      } catch (ReflectiveOperationException | LinkageError e) {
+        // The module wasn't added, fall through to the scalar kernel
+      }
+    }
+    return new ScalarIntersectionKernel();
+  }
+}
@@ -0,0 +1,57 @@
+package ca.marcelli.vector;
+
+import java.util.Arrays;
+
+/**
+ * One rectangle at a time, what's used when the Vector API isn't there. The JIT may still unroll
+ * this, but it won't turn the branches into vector instructions.
+ */
+public class ScalarIntersectionKernel implements IntersectionKernel {
+
+  @Override
+  public void evaluate(int x, int y, int width, int length, int[] xs, int[] ys, int[] widths,
+                       int[] lengths, int count, long[] intersects, long[] contained,
+                       long[] containing) {
+    clear(count, intersects, contained, containing);
+    evaluateRange(x, y, width, length, xs, ys, widths, lengths, 0, count, intersects, contained,
+        containing);
+  }
+
+  @Override
+  public String getName() {
+    return "scalar";
+  }
+
+  static void clear(int count, long[] intersects, long[] contained, long[] containing) {
+    int words = IntersectionKernel.words(count);
+    Arrays.fill(intersects, 0, words, 0);
+    Arrays.fill(contained, 0, words, 0);
+    Arrays.fill(containing, 0, words, 0);
+  }
+
+  // Sets bits from..to without clearing, so the vector kernel can finish its tail with it
+  static void evaluateRange(int x, int y, int width, int length, int[] xs, int[] ys, int[] widths,
+                            int[] lengths, int from, int to, long[] intersects, long[] contained,
+                            long[] containing) {
+    int right = x + width;
+    int bottom = y + length;
+    boolean hasArea = width > 0 && length > 0;
+    for (int i = from; i < to; i++) {
+      int bx = xs[i];
+      int by = ys[i];
+      int bRight = bx + widths[i];
+      int bBottom = by + lengths[i];
+      long bit = 1L << i;
+      if (Math.max(x, bx) < Math.min(right, bRight) && Math.max(y, by) < Math.min(bottom, bBottom)) {
+        intersects[i >>> 6] |= bit;
+      }
+      if (widths[i] > 0 && lengths[i] > 0 && x <= bx && y <= by && bRight <= right
+          && bBottom <= bottom) {
+        contained[i >>> 6] |= bit;
+      }
+      if (hasArea && bx <= x && by <= y && right <= bRight && bottom <= bBottom) {
+        containing[i >>> 6] |= bit;
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package ca.marcelli.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Checks as many rectangles at a time as fit in a vector register, 8 with AVX2 and 16 with AVX-512.
+ * <p>
+ * The target is broadcast to every lane once, then each step loads a lane's worth of each column,
+ * compares them all with no branches, and turns the resulting masks straight into bitmap bits. The
+ * lane count always divides 64, so a step never straddles two words. Whatever's left at the end is
+ * done by the scalar loop.
+ * <p>
+ * Needs {@code --add-modules jdk.incubator.vector} at compile and run time, go through
+ * {@link IntersectionKernels#best()} to fall back when it's not there.
+ */
+public class VectorIntersectionKernel implements IntersectionKernel {
+
+  private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+  /**
+   * How many rectangles are checked per step on this machine.
+   */
+  public static int lanes() {
+    return SPECIES.length();
+  }
+
+  @Override
+  public void evaluate(int x, int y, int width, int length, int[] xs, int[] ys, int[] widths,
+                       int[] lengths, int count, long[] intersects, long[] contained,
+                       long[] containing) {
+    ScalarIntersectionKernel.clear(count, intersects, contained, containing);
+    int right = x + width;
+    int bottom = y + length;
+    IntVector targetX = IntVector.broadcast(SPECIES, x);
+    IntVector targetY = IntVector.broadcast(SPECIES, y);
+    IntVector targetRight = IntVector.broadcast(SPECIES, right);
+    IntVector targetBottom = IntVector.broadcast(SPECIES, bottom);
+    // A target with no area is never contained, so that test can be skipped entirely
+    boolean hasArea = width > 0 && length > 0;
+
+    int lanes = SPECIES.length();
+    int bound = SPECIES.loopBound(count);
+    for (int i = 0; i < bound; i += lanes) {
+      IntVector bx = IntVector.fromArray(SPECIES, xs, i);
+      IntVector by = IntVector.fromArray(SPECIES, ys, i);
+      IntVector bw = IntVector.fromArray(SPECIES, widths, i);
+      IntVector bl = IntVector.fromArray(SPECIES, lengths, i);
+      IntVector bRight = bx.add(bw);
+      IntVector bBottom = by.add(bl);
+
+      VectorMask<Integer> intersecting = bx.max(targetX).lt(bRight.min(targetRight))
+          .and(by.max(targetY).lt(bBottom.min(targetBottom)));
+      VectorMask<Integer> inside = bw.compare(VectorOperators.GT, 0)
+          .and(bl.compare(VectorOperators.GT, 0))
+          .and(targetX.compare(VectorOperators.LE, bx))
+          .and(targetY.compare(VectorOperators.LE, by))
+          .and(bRight.compare(VectorOperators.LE, targetRight))
+          .and(bBottom.compare(VectorOperators.LE, targetBottom));
+
+      int word = i >>> 6;
+      int shift = i & 63;
+      intersects[word] |= intersecting.toLong() << shift;
+      contained[word] |= inside.toLong() << shift;
+      if (hasArea) {
+        VectorMask<Integer> around = bx.compare(VectorOperators.LE, targetX)
+            .and(by.compare(VectorOperators.LE, targetY))
+            .and(targetRight.compare(VectorOperators.LE, bRight))
+            .and(targetBottom.compare(VectorOperators.LE, bBottom));
+        containing[word] |= around.toLong() << shift;
+      }
+    }
+    ScalarIntersectionKernel.evaluateRange(x, y, width, length, xs, ys, widths, lengths, bound,
+        count, intersects, contained, containing);
+  }
+
+  @Override
+  public String getName() {
+    return "vector" + lanes();
+  }
+}
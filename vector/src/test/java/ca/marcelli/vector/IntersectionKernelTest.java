@@ -0,0 +1,86 @@
+package ca.marcelli.vector;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ca.marcelli.geometry.RectangleMath;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class IntersectionKernelTest {
+
+  @Test
+  void testKernelsMatchRectangleMath() {
+    // Coarse coordinates so there are plenty of shared sides, equal rectangles and empty ones, and a
+    // count that leaves a tail after the vector loop
+    Random random = new Random(11);
+    int count = 1003;
+    int[] xs = new int[count];
+    int[] ys = new int[count];
+    int[] widths = new int[count];
+    int[] lengths = new int[count];
+    for (int i = 0; i < count; i++) {
+      xs[i] = random.nextInt(20) * 5;
+      ys[i] = random.nextInt(20) * 5;
+      widths[i] = random.nextInt(8) * 5;
+      lengths[i] = random.nextInt(8) * 5;
+    }
+
+    IntersectionKernel[] kernels = {new ScalarIntersectionKernel(), new VectorIntersectionKernel()};
+    for (int target = 0; target < 50; target++) {
+      int x = xs[target];
+      int y = ys[target];
+      int w = widths[target];
+      int l = lengths[target];
+      long[] expectedIntersects = new long[IntersectionKernel.words(count)];
+      long[] expectedContained = new long[IntersectionKernel.words(count)];
+      long[] expectedContaining = new long[IntersectionKernel.words(count)];
+      for (int i = 0; i < count; i++) {
+        if (RectangleMath.intersects(x, y, w, l, xs[i], ys[i], widths[i], lengths[i])) {
+          expectedIntersects[i >>> 6] |= 1L << i;
+        }
+        if (RectangleMath.contains(x, y, w, l, xs[i], ys[i], widths[i], lengths[i])) {
+          expectedContained[i >>> 6] |= 1L << i;
+        }
+        if (RectangleMath.contains(xs[i], ys[i], widths[i], lengths[i], x, y, w, l)) {
+          expectedContaining[i >>> 6] |= 1L << i;
+        }
+      }
+
+      for (IntersectionKernel kernel : kernels) {
+        // Start dirty, the kernel has to clear them
+        long[] intersects = filled(count);
+        long[] contained = filled(count);
+        long[] containing = filled(count);
+        kernel.evaluate(x, y, w, l, xs, ys, widths, lengths, count, intersects, contained,
+            containing);
+        assertArrayEquals(expectedIntersects, intersects, kernel.getName());
+        assertArrayEquals(expectedContained, contained, kernel.getName());
+        assertArrayEquals(expectedContaining, containing, kernel.getName());
+      }
+    }
+  }
+
+  @Test
+  void testBest() {
+    // Surefire adds the module, so this only falls back on machines without vector registers
+    IntersectionKernel best = IntersectionKernels.best();
+    assertTrue(best.getName().startsWith(
+        VectorIntersectionKernel.lanes() >= 4 ? "vector" : "scalar"));
+
+    System.setProperty("rectangles.vector", "false");
+    try {
+      assertEquals("scalar", IntersectionKernels.best().getName());
+    } finally {
+      System.clearProperty("rectangles.vector");
+    }
+  }
+
+  private static long[] filled(int count) {
+    long[] bitmap = new long[IntersectionKernel.words(count)];
+    Arrays.fill(bitmap, -1L);
+    return bitmap;
+  }
+}